@@ -0,0 +1,35 @@
+package de.unistuttgart.hamster.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Runs all benchmarks, or the ones matching the regular
+ * expressions given as arguments, with the gc profiler attached and writes the results to
+ * jmh-result.json so that the numbers can be compared between releases.
+ * Throughput is reported by Mode.Throughput, the p99 latency by the percentiles of Mode.SampleTime
+ * and the allocation rate by the gc.alloc.rate.norm secondary results.
+ */
+public final class BenchmarkRunner {
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() { }
+
+    public static void main(final String[] args) throws RunnerException {
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT_FILE);
+        if (args.length == 0) {
+            options.include(BenchmarkRunner.class.getPackageName() + ".*");
+        }
+        for (final String include : args) {
+            options.include(include);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,48 @@
+package de.unistuttgart.hamster.benchmarks;
+
+import de.unistuttgart.hamster.facade.HamsterGame;
+import de.unistuttgart.hamster.facade.TerritoryLoader;
+import de.unistuttgart.hamster.viewmodel.impl.HamsterGameViewPresenter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the view model of an already loaded territory with
+ * {@link HamsterGameViewPresenter#bind()}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PresenterBindBenchmark {
+
+    @Param({"5x3", "100x100", "500x500", "2000x2000"})
+    public String size;
+
+    private byte[] territory;
+    private HamsterGame game;
+
+    @Setup(Level.Trial)
+    public void readTerritory() throws IOException {
+        this.territory = TerritoryFixtures.territoryBytes(size);
+    }
+
+    @Setup(Level.Invocation)
+    public void loadGame() throws IOException {
+        this.game = new HamsterGame();
+        this.game.hardReset();
+        TerritoryLoader.initializeFor(game).loadFromInputStream(new ByteArrayInputStream(territory));
+    }
+
+    @Benchmark
+    public HamsterGameViewPresenter bind() {
+        final var presenter = new HamsterGameViewPresenter(game);
+        presenter.bind();
+        return presenter;
+    }
+}
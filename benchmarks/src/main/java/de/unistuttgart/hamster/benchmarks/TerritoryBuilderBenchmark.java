@@ -0,0 +1,71 @@
+package de.unistuttgart.hamster.benchmarks;
+
+import de.unistuttgart.hamster.facade.HamsterGame;
+import de.unistuttgart.hamster.facade.TerritoryBuilder;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures populating the tiles of a territory through {@link TerritoryBuilder} without
+ * any parsing involved.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TerritoryBuilderBenchmark {
+
+    @Param({"5x3", "100x100", "500x500", "2000x2000"})
+    public String size;
+
+    private int columns;
+    private int rows;
+    private final List<Location> walls = new ArrayList<>();
+    private final List<Location> clovers = new ArrayList<>();
+    private HamsterGame game;
+
+    @Setup(Level.Trial)
+    public void computeTileLayout() {
+        this.columns = TerritoryFixtures.columnsOf(size);
+        this.rows = TerritoryFixtures.rowsOf(size);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                if (column == 1 && row == 1) {
+                    continue;
+                }
+                if (TerritoryFixtures.isWall(column, row, columns, rows)) {
+                    walls.add(new Location(column, row));
+                } else if (TerritoryFixtures.isClover(column, row)) {
+                    clovers.add(new Location(column, row));
+                }
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createGame() {
+        this.game = new HamsterGame();
+        this.game.hardReset();
+    }
+
+    @Benchmark
+    public HamsterGame populateTiles() {
+        final TerritoryBuilder builder = new TerritoryBuilder(game);
+        builder.initTerritory(columns, rows);
+        for (final Location wall : walls) {
+            builder.addWallToTile(wall);
+        }
+        builder.initDefaultLadybug(1, 1, Direction.EAST);
+        for (final Location clover : clovers) {
+            builder.addMushroomToTile(clover);
+        }
+        return game;
+    }
+}
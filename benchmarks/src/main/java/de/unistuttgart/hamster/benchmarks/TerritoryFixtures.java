@@ -0,0 +1,82 @@
+package de.unistuttgart.hamster.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides the territories the benchmarks are run on. The smallest size is the shipped
+ * example01.ter, all other sizes are generated as walled fields with wall segments and
+ * clover tiles spread over the territory.
+ */
+final class TerritoryFixtures {
+    static final String EXAMPLE_SIZE = "5x3";
+    private static final String EXAMPLE_TERRITORY = "de.unistuttgart.hamster.territories/example01.ter";
+
+    private TerritoryFixtures() { }
+
+    /**
+     * Returns the .ter encoded territory for the given size.
+     * @param size the size of the territory as columns x rows, e.g. 100x100
+     * @return the bytes of the territory file
+     */
+    static byte[] territoryBytes(final String size) throws IOException {
+        if (EXAMPLE_SIZE.equals(size)) {
+            return readExampleTerritory();
+        }
+        return generateTerritory(columnsOf(size), rowsOf(size)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int columnsOf(final String size) {
+        return Integer.parseInt(size.substring(0, size.indexOf('x')));
+    }
+
+    static int rowsOf(final String size) {
+        return Integer.parseInt(size.substring(size.indexOf('x') + 1));
+    }
+
+    static boolean isWall(final int column, final int row, final int columns, final int rows) {
+        final boolean border = column == 0 || row == 0 || column == columns - 1 || row == rows - 1;
+        return border || (column % 4 == 0 && row % 8 != 1);
+    }
+
+    static boolean isClover(final int column, final int row) {
+        return (column * 31 + row * 17) % 7 == 0;
+    }
+
+    static int cloverCount(final int column, final int row) {
+        return 1 + (column + row) % 5;
+    }
+
+    private static byte[] readExampleTerritory() throws IOException {
+        try (InputStream in = TerritoryFixtures.class.getClassLoader().getResourceAsStream(EXAMPLE_TERRITORY)) {
+            if (in == null) {
+                throw new IOException("Unable to load the territory from the filename: " + EXAMPLE_TERRITORY);
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    private static String generateTerritory(final int columns, final int rows) {
+        final StringBuilder tiles = new StringBuilder(columns * rows + rows);
+        final StringBuilder counts = new StringBuilder();
+        tiles.append(columns).append('\n').append(rows).append('\n');
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                if (column == 1 && row == 1) {
+                    tiles.append('>');
+                    counts.append(0).append('\n');
+                } else if (isWall(column, row, columns, rows)) {
+                    tiles.append('#');
+                } else if (isClover(column, row)) {
+                    tiles.append('*');
+                    counts.append(cloverCount(column, row)).append('\n');
+                } else {
+                    tiles.append(' ');
+                }
+            }
+            tiles.append('\n');
+        }
+        return tiles.append(counts).append(0).append('\n').toString();
+    }
+}
@@ -0,0 +1,73 @@
+package de.unistuttgart.hamster.benchmarks;
+
+import de.unistuttgart.hamster.facade.HamsterGame;
+import de.unistuttgart.hamster.facade.TerritoryConverter;
+import de.unistuttgart.hamster.facade.TerritoryLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a .ter file with {@link TerritoryLoader#loadFromInputStream} and
+ * {@link TerritoryLoader#loadFromFile}, and reading its binary counterpart with
+ * {@link TerritoryLoader#loadFromBinaryFile}, into a fresh game.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TerritoryLoaderBenchmark {
+
+    @Param({"5x3", "100x100", "500x500", "2000x2000"})
+    public String size;
+
+    private byte[] territory;
+    private Path territoryFile;
+    private Path binaryTerritoryFile;
+    private HamsterGame game;
+
+    @Setup(Level.Trial)
+    public void readTerritory() throws IOException {
+        this.territory = TerritoryFixtures.territoryBytes(size);
+        this.territoryFile = Files.createTempFile("territory-" + size, ".ter");
+        Files.write(territoryFile, territory);
+        this.binaryTerritoryFile = Files.createTempFile("territory-" + size, ".kter");
+        TerritoryConverter.convertToBinary(territoryFile, binaryTerritoryFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTerritoryFile() throws IOException {
+        Files.deleteIfExists(territoryFile);
+        Files.deleteIfExists(binaryTerritoryFile);
+    }
+
+    @Setup(Level.Invocation)
+    public void createGame() {
+        this.game = new HamsterGame();
+        this.game.hardReset();
+    }
+
+    @Benchmark
+    public HamsterGame loadFromInputStream() throws IOException {
+        TerritoryLoader.initializeFor(game).loadFromInputStream(new ByteArrayInputStream(territory));
+        return game;
+    }
+
+    @Benchmark
+    public HamsterGame loadFromFile() throws IOException {
+        TerritoryLoader.initializeFor(game).loadFromFile(territoryFile);
+        return game;
+    }
+
+    @Benchmark
+    public HamsterGame loadFromBinaryFile() throws IOException {
+        TerritoryLoader.initializeFor(game).loadFromBinaryFile(binaryTerritoryFile);
+        return game;
+    }
+}
@@ -0,0 +1,84 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+
+import java.util.List;
+
+/**
+ * Territory sink which passes the loaded territory on to the game's territory builder as it is read
+ * and announces the load as one bulk load to the registered {@link BulkLoadListener}s of the game.
+ * No copy of the territory is kept, so loading from a file stays bounded in memory.
+ * <p>
+ * The territory builder still changes the tiles one by one and the model fires an event for each
+ * change. Only the listeners defer their work, e.g. the presenter configures each changed cell once
+ * when the load is committed instead of once per wall or clover.
+ * @see TerritoryBulkLoads
+ */
+final class BatchedTerritoryBuilder implements TerritorySink {
+    private final HamsterGame game;
+    private TerritorySink territoryBuilder;
+    private List<BulkLoadListener> pendingListeners = List.of();
+
+    BatchedTerritoryBuilder(final HamsterGame game) {
+        this.game = game;
+    }
+
+    @Override
+    public void initTerritory(final int columnCount, final int rowCount) {
+        commit();
+        this.pendingListeners = TerritoryBulkLoads.listenersOf(game);
+        pendingListeners.forEach(BulkLoadListener::bulkLoadStarted);
+        try {
+            this.territoryBuilder = new TerritoryBuilderSink(new TerritoryBuilder(game), game.getTerritory());
+            territoryBuilder.initTerritory(columnCount, rowCount);
+        } catch (final RuntimeException e) {
+            commit();
+            throw e;
+        }
+    }
+
+    @Override
+    public void addWall(final Location location) {
+        territoryBuilder.addWall(location);
+    }
+
+    @Override
+    public void endRow(final int row) {
+        territoryBuilder.endRow(row);
+    }
+
+    @Override
+    public void initDefaultLadybug(final Location location, final Direction direction) {
+        territoryBuilder.initDefaultLadybug(location, direction);
+    }
+
+    @Override
+    public void addClover(final Location location, final int count) {
+        territoryBuilder.addClover(location, count);
+    }
+
+    @Override
+    public void finishTerritory() {
+        try {
+            territoryBuilder.finishTerritory();
+        } finally {
+            commit();
+        }
+    }
+
+    /**
+     * Commits the bulk load, so listeners do not wait for a territory which is never finished.
+     */
+    @Override
+    public void abortTerritory() {
+        commit();
+    }
+
+    private void commit() {
+        final List<BulkLoadListener> listeners = pendingListeners;
+        this.pendingListeners = List.of();
+        this.territoryBuilder = null;
+        listeners.forEach(BulkLoadListener::bulkLoadCommitted);
+    }
+}
@@ -0,0 +1,78 @@
+package de.unistuttgart.hamster.facade;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Constants and encoding helpers of the binary territory format.
+ * <p>
+ * A binary territory consists of
+ * <ul>
+ *     <li>the magic bytes {@code KTER} followed by a version byte,</li>
+ *     <li>the column and row count, both positive,</li>
+ *     <li>one run length encoded wall row per territory row: alternating lengths of free and wall
+ *     runs, starting with a (possibly empty) free run, until the runs cover all columns,</li>
+ *     <li>the column and row of the default ladybug followed by a byte with the ordinal of its direction,</li>
+ *     <li>the clover table: for each tile holding clovers in row major order its clover count followed by
+ *     the number of tiles skipped since the previous entry, terminated by a count of 0.</li>
+ * </ul>
+ * All numbers except the direction are encoded as unsigned variable length integers with 7 bits per byte.
+ */
+final class BinaryTerritoryFormat {
+    static final byte[] MAGIC = {'K', 'T', 'E', 'R'};
+    static final int VERSION = 2;
+
+    private BinaryTerritoryFormat() { }
+
+    static void writeVarInt(final OutputStream out, final int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    static int readVarInt(final InputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int next = readByte(in);
+            result |= (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Territory error: malformed number in binary territory.");
+    }
+
+    static int readByte(final InputStream in) throws IOException {
+        final int next = in.read();
+        if (next < 0) {
+            throw new EOFException("Territory error: unexpected end of binary territory.");
+        }
+        return next;
+    }
+
+    static void writeVarLong(final OutputStream out, final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) (remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    static long readVarLong(final InputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int next = readByte(in);
+            result |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Territory error: malformed number in binary territory.");
+    }
+}
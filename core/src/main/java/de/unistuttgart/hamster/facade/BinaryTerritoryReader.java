@@ -0,0 +1,99 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static de.unistuttgart.hamster.facade.BinaryTerritoryFormat.*;
+
+/**
+ * Reads a territory in the binary territory format and passes its content to a territory sink.
+ */
+final class BinaryTerritoryReader {
+    private final InputStream in;
+
+    BinaryTerritoryReader(final InputStream in) {
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in);
+    }
+
+    void readInto(final TerritorySink sink) throws IOException {
+        readHeader();
+        final int columnCount = readVarInt(in);
+        final int rowCount = readVarInt(in);
+        if (columnCount <= 0 || rowCount <= 0) {
+            throw new IOException("Territory error: invalid territory size " + columnCount + "x" + rowCount + ".");
+        }
+        sink.initTerritory(columnCount, rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            readWallRow(sink, row, columnCount);
+            sink.endRow(row);
+        }
+        final int ladybugColumn = readVarInt(in);
+        final int ladybugRow = readVarInt(in);
+        if (ladybugColumn < 0 || ladybugColumn >= columnCount || ladybugRow < 0 || ladybugRow >= rowCount) {
+            throw new IOException("Territory error: default ladybug outside of the territory.");
+        }
+        sink.initDefaultLadybug(new Location(ladybugColumn, ladybugRow), readDirection());
+        readCloverTable(sink, columnCount, (long) columnCount * rowCount);
+        sink.finishTerritory();
+    }
+
+    private void readHeader() throws IOException {
+        final byte[] magic = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Territory error: not a binary territory.");
+        }
+        final int version = readByte(in);
+        if (version != VERSION) {
+            throw new IOException("Territory error: unsupported binary territory version " + version + ".");
+        }
+    }
+
+    private void readWallRow(final TerritorySink sink, final int row, final int columnCount) throws IOException {
+        int column = 0;
+        boolean isWallRun = false;
+        while (column < columnCount) {
+            final int runEnd = column + readVarInt(in);
+            if (runEnd > columnCount) {
+                throw new IOException("Territory error: row " + row + " is longer than " + columnCount + " columns.");
+            }
+            if (isWallRun) {
+                for (; column < runEnd; column++) {
+                    sink.addWall(new Location(column, row));
+                }
+            }
+            column = runEnd;
+            isWallRun = !isWallRun;
+        }
+    }
+
+    private Direction readDirection() throws IOException {
+        final int ordinal = readByte(in);
+        final Direction[] directions = Direction.values();
+        if (ordinal >= directions.length) {
+            throw new IOException("Territory error: unknown direction " + ordinal + ".");
+        }
+        return directions[ordinal];
+    }
+
+    private void readCloverTable(final TerritorySink sink, final int columnCount, final long tileCount) throws IOException {
+        long nextIndex = 0;
+        int count = readVarInt(in);
+        while (count != 0) {
+            if (count < 0) {
+                throw new IOException("Territory error: invalid clover count " + count + ".");
+            }
+            final long index = nextIndex + readVarLong(in);
+            if (index < nextIndex || index >= tileCount) {
+                throw new IOException("Territory error: clover tile outside of the territory.");
+            }
+            nextIndex = index + 1;
+            sink.addClover(new Location((int) (index % columnCount), (int) (index / columnCount)), count);
+            count = readVarInt(in);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+
+import static de.unistuttgart.hamster.facade.BinaryTerritoryFormat.*;
+
+/**
+ * Writes the territory content it receives in the binary territory format. Rows are encoded as
+ * soon as they are complete, so only the walls of the current row are kept in memory.
+ */
+final class BinaryTerritoryWriter implements TerritorySink {
+    private final OutputStream out;
+    private final BitSet rowWalls = new BitSet();
+    private int columnCount;
+    private long nextCloverIndex;
+
+    BinaryTerritoryWriter(final OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void initTerritory(final int columnCount, final int rowCount) {
+        this.columnCount = columnCount;
+        write(() -> {
+            out.write(MAGIC);
+            out.write(VERSION);
+            writeVarInt(out, columnCount);
+            writeVarInt(out, rowCount);
+        });
+    }
+
+    @Override
+    public void addWall(final Location location) {
+        rowWalls.set(location.getColumn());
+    }
+
+    @Override
+    public void endRow(final int row) {
+        write(() -> {
+            int column = 0;
+            while (column < columnCount) {
+                final int wallStart = nextWallStart(column);
+                writeVarInt(out, wallStart - column);
+                if (wallStart == columnCount) {
+                    break;
+                }
+                final int wallEnd = Math.min(rowWalls.nextClearBit(wallStart), columnCount);
+                writeVarInt(out, wallEnd - wallStart);
+                column = wallEnd;
+            }
+        });
+        rowWalls.clear();
+    }
+
+    private int nextWallStart(final int column) {
+        final int wallStart = rowWalls.nextSetBit(column);
+        return wallStart < 0 ? columnCount : Math.min(wallStart, columnCount);
+    }
+
+    @Override
+    public void initDefaultLadybug(final Location location, final Direction direction) {
+        write(() -> {
+            writeVarInt(out, location.getColumn());
+            writeVarInt(out, location.getRow());
+            out.write(direction.ordinal());
+        });
+    }
+
+    @Override
+    public void addClover(final Location location, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        final long index = (long) location.getRow() * columnCount + location.getColumn();
+        if (index < nextCloverIndex) {
+            throw new IllegalArgumentException("Clovers have to be added in row major order.");
+        }
+        write(() -> {
+            writeVarInt(out, count);
+            writeVarLong(out, index - nextCloverIndex);
+        });
+        nextCloverIndex = index + 1;
+    }
+
+    /**
+     * Terminates the clover table and flushes the underlying stream.
+     */
+    @Override
+    public void finishTerritory() {
+        write(() -> {
+            writeVarInt(out, 0);
+            out.flush();
+        });
+    }
+
+    @FunctionalInterface
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    private void write(final Write write) {
+        try {
+            write.run();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package de.unistuttgart.hamster.facade;
+
+/**
+ * Is notified when a territory is published to a game as one bulk load.
+ * Between both calls the tiles of the territory are populated one by one, observers can use this
+ * to defer their per tile updates until the load is committed.
+ */
+public interface BulkLoadListener {
+
+    /**
+     * Called before the first tile of the loaded territory is changed.
+     */
+    void bulkLoadStarted();
+
+    /**
+     * Called after the last tile of the loaded territory has been changed.
+     */
+    void bulkLoadCommitted();
+}
@@ -0,0 +1,149 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.LogEntry;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Emits a {@link LadybugCommandEvent} for every command executed in a game. The event of a command begins
+ * at its first effect on the territory and is committed after its log entry, see {@link CommandObserver}.
+ * Commands without effects, like writing, are committed with their log entry.
+ * <p>
+ * Games are only registered here. The commands of the registered games are observed while a flight
+ * recording which enables the event is running, the observers are attached when the first such recording
+ * starts and closed when the last one stops. Until then, a registered game is not observed at all.
+ */
+public final class CommandEvents {
+    private static final String ENABLED_SETTING = LadybugCommandEvent.NAME + "#enabled";
+
+    // all static state is guarded by games
+    private static final Set<HamsterGame> games = Collections.newSetFromMap(new WeakHashMap<>());
+    private static final Map<HamsterGame, WeakReference<CommandEvents>> instances = new WeakHashMap<>();
+    private static boolean isTrackingRecordings = false;
+    private static boolean isAttached = false;
+
+    private final LadybugRegistry ladybugRegistry;
+    private final CommandObserver commandObserver;
+    private final ThreadLocal<LadybugCommandEvent> pendingEvents = new ThreadLocal<>();
+
+    private final CommandObserver.Listener commandListener = new CommandObserver.Listener() {
+        @Override
+        public void commandStarted() {
+            final LadybugCommandEvent event = new LadybugCommandEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                pendingEvents.set(event);
+            }
+        }
+
+        @Override
+        public void commandExecuted(final LogEntry entry, final CommandObserver.Kind kind,
+                                    final Location lastChangedLocation, final int changeCount) {
+            LadybugCommandEvent event = pendingEvents.get();
+            pendingEvents.remove();
+            if (event == null) {
+                event = new LadybugCommandEvent();
+                if (!event.isEnabled()) {
+                    return;
+                }
+                event.begin();
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.actor = ladybugRegistry.getNumber(entry.getActor());
+                event.command = kind.getCommandName();
+                event.column = lastChangedLocation == null ? -1 : lastChangedLocation.getColumn();
+                event.row = lastChangedLocation == null ? -1 : lastChangedLocation.getRow();
+                event.batchSize = changeCount;
+                event.commit();
+            }
+        }
+
+        @Override
+        public void logEntriesRemoved(final int count) {
+            pendingEvents.remove();
+        }
+    };
+
+    /*
+     * The instances are only referenced by the listeners they registered on the game, so they live as long as it.
+     */
+    private CommandEvents(final HamsterGame game) {
+        this.ladybugRegistry = LadybugRegistry.of(game.getTerritory());
+        this.commandObserver = new CommandObserver(game, commandListener);
+    }
+
+    /**
+     * Registers the game, so that command events are emitted for it while a recording enables them.
+     * Does nothing if the game is already registered or no flight recorder is available.
+     * @param game the game whose commands are recorded
+     */
+    public static void enableFor(final HamsterGame game) {
+        if (!FlightRecorder.isAvailable()) {
+            return;
+        }
+        synchronized (games) {
+            trackRecordings();
+            if (games.add(game) && isAttached) {
+                attach(game);
+            }
+        }
+    }
+
+    /*
+     * Attaches the observers when the event becomes enabled and closes them when it is disabled again.
+     */
+    private static void trackRecordings() {
+        if (isTrackingRecordings) {
+            return;
+        }
+        isTrackingRecordings = true;
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(final Recording recording) {
+                updateAttachment(isEventRecorded(FlightRecorder.getFlightRecorder().getRecordings()));
+            }
+        });
+        if (FlightRecorder.isInitialized()) {
+            updateAttachment(isEventRecorded(FlightRecorder.getFlightRecorder().getRecordings()));
+        }
+    }
+
+    private static boolean isEventRecorded(final List<Recording> recordings) {
+        return recordings.stream().anyMatch(recording -> recording.getState() == RecordingState.RUNNING
+                && "true".equals(recording.getSettings().get(ENABLED_SETTING)));
+    }
+
+    private static void updateAttachment(final boolean isEventRecorded) {
+        synchronized (games) {
+            if (isEventRecorded == isAttached) {
+                return;
+            }
+            isAttached = isEventRecorded;
+            if (isEventRecorded) {
+                new ArrayList<>(games).forEach(CommandEvents::attach);
+            } else {
+                instances.values().stream()
+                        .map(WeakReference::get)
+                        .filter(instance -> instance != null)
+                        .forEach(instance -> instance.commandObserver.close());
+                instances.clear();
+            }
+        }
+    }
+
+    private static void attach(final HamsterGame game) {
+        instances.put(game, new WeakReference<>(new CommandEvents(game)));
+    }
+}
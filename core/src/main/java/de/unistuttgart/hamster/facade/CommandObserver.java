@@ -0,0 +1,225 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.hamster.hamster.Clover;
+import de.unistuttgart.hamster.hamster.ReadOnlyHamster;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.LogEntry;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Observes the ladybug commands executed in a game and tells the kind of each command from its effects
+ * on the territory instead of from its log message, so text written by a ladybug is never taken for a
+ * command: a command which moves a ladybug is a move, one which turns a ladybug a turn, one which removes
+ * or adds a clover a pick or a put and one without any of these effects a write.
+ * <p>
+ * A command changes the territory and adds its log entry on the thread executing it, so the effects are
+ * collected per thread until the next log entry. They are discarded when a log entry is removed, e.g. by an
+ * undo, when the tiles of the territory are replaced, when a territory load is committed and when a new
+ * ladybug enters the territory. The kind is taken from the last effect, so a command redone right after it
+ * was undone is told from its own effects, which follow the reverted ones.
+ */
+final class CommandObserver implements AutoCloseable {
+
+    enum Kind {
+        MOVE("move"),
+        TURN_LEFT("turnLeft"),
+        PICK_CLOVER("pickClover"),
+        PUT_CLOVER("putClover"),
+        WRITE("write");
+
+        private final String commandName;
+
+        Kind(final String commandName) {
+            this.commandName = commandName;
+        }
+
+        /**
+         * @return the name of the ladybug method executing commands of this kind
+         */
+        String getCommandName() {
+            return commandName;
+        }
+    }
+
+    /**
+     * Is notified about the commands executed in the game, on the thread executing them.
+     */
+    interface Listener {
+
+        /**
+         * Called on the first effect of a command, no call is made for commands without effects.
+         */
+        default void commandStarted() {
+        }
+
+        /**
+         * Called after the command added its log entry.
+         * @param entry the log entry of the command
+         * @param kind the kind of the command
+         * @param lastChangedLocation the location of the last tile whose content the command changed, or null
+         * @param changeCount the number of tile content changes made by the command
+         */
+        void commandExecuted(LogEntry entry, Kind kind, Location lastChangedLocation, int changeCount);
+
+        /**
+         * Called after entries were removed from the log, e.g. by an undo or a reset.
+         * @param count the number of removed entries
+         */
+        default void logEntriesRemoved(final int count) {
+        }
+    }
+
+    /*
+     * The effects of the command executed on a thread since its last log entry.
+     */
+    private static final class Execution {
+        Kind kind = null;
+        Location lastChangedLocation = null;
+        int changeCount = 0;
+
+        boolean isStarted() {
+            return kind != null || changeCount > 0;
+        }
+
+        void clear() {
+            kind = null;
+            lastChangedLocation = null;
+            changeCount = 0;
+        }
+    }
+
+    private final HamsterGame game;
+    private final Territory territory;
+    private final Listener listener;
+    private final ThreadLocal<Execution> executions = ThreadLocal.withInitial(Execution::new);
+    private final Map<ReadOnlyHamster, ChangeListener<Direction>> directionListeners = new HashMap<>();
+    private final GameLogObserver logObserver;
+    private boolean isClosed = false;
+
+    private final TileContentListener tileContentListener = new TileContentListener() {
+        @Override
+        public void contentAdded(final Tile tile, final Object content) {
+            contentChanged(tile, content, true);
+        }
+
+        @Override
+        public void contentRemoved(final Tile tile, final Object content) {
+            contentChanged(tile, content, false);
+        }
+    };
+
+    private final ListChangeListener<Tile> tilesChangedListener = change -> executions.get().clear();
+
+    private final BulkLoadListener bulkLoadListener = new BulkLoadListener() {
+        @Override
+        public void bulkLoadStarted() {
+        }
+
+        @Override
+        public void bulkLoadCommitted() {
+            executions.get().clear();
+        }
+    };
+
+    /**
+     * Starts observing the commands of the game, until closed.
+     * @param game the game to observe
+     * @param listener the listener to notify
+     */
+    CommandObserver(final HamsterGame game, final Listener listener) {
+        this.game = game;
+        this.territory = game.getTerritory();
+        this.listener = listener;
+        TileContentIndex.of(territory).addTileContentListener(tileContentListener);
+        territory.getInternalTerritory().tilesProperty().addListener(tilesChangedListener);
+        TerritoryBulkLoads.addBulkLoadListener(game, bulkLoadListener);
+        territory.getInternalTerritory().getTileContents().stream()
+                .filter(ReadOnlyHamster.class::isInstance)
+                .map(ReadOnlyHamster.class::cast)
+                .forEach(this::observeDirection);
+        this.logObserver = new GameLogObserver(game, this::logEntryAdded, this::logEntriesRemoved);
+    }
+
+    /**
+     * Stops observing the game. Does nothing if already closed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            TileContentIndex.of(territory).removeTileContentListener(tileContentListener);
+            territory.getInternalTerritory().tilesProperty().removeListener(tilesChangedListener);
+            directionListeners.forEach((ladybug, directionListener) -> ladybug.directionProperty().removeListener(directionListener));
+            directionListeners.clear();
+        }
+        TerritoryBulkLoads.removeBulkLoadListener(game, bulkLoadListener);
+        logObserver.detach();
+    }
+
+    private void contentChanged(final Tile tile, final Object content, final boolean wasAdded) {
+        final Execution execution = executions.get();
+        if (content instanceof ReadOnlyHamster) {
+            if (!observeDirection((ReadOnlyHamster) content)) {
+                // a ladybug entering the territory is not the effect of a command
+                execution.clear();
+                return;
+            }
+            effect(execution, Kind.MOVE);
+        } else if (content instanceof Clover) {
+            effect(execution, wasAdded ? Kind.PUT_CLOVER : Kind.PICK_CLOVER);
+        } else {
+            effect(execution, null);
+        }
+        execution.lastChangedLocation = tile.getLocation();
+        execution.changeCount++;
+    }
+
+    private void directionChanged(final ReadOnlyHamster ladybug) {
+        if (ladybug.getCurrentTile() != null) {
+            effect(executions.get(), Kind.TURN_LEFT);
+        }
+    }
+
+    private void effect(final Execution execution, final Kind kind) {
+        if (!execution.isStarted()) {
+            listener.commandStarted();
+        }
+        if (kind != null) {
+            execution.kind = kind;
+        }
+    }
+
+    private void logEntryAdded(final LogEntry entry) {
+        final Execution execution = executions.get();
+        final Kind kind = execution.kind == null ? Kind.WRITE : execution.kind;
+        listener.commandExecuted(entry, kind, execution.lastChangedLocation, execution.changeCount);
+        execution.clear();
+    }
+
+    private void logEntriesRemoved(final int count) {
+        executions.get().clear();
+        listener.logEntriesRemoved(count);
+    }
+
+    /**
+     * @return whether the ladybug was already observed
+     */
+    private synchronized boolean observeDirection(final ReadOnlyHamster ladybug) {
+        if (isClosed || directionListeners.containsKey(ladybug)) {
+            return true;
+        }
+        final ChangeListener<Direction> directionListener = (property, oldValue, newValue) -> directionChanged(ladybug);
+        directionListeners.put(ladybug, directionListener);
+        ladybug.directionProperty().addListener(directionListener);
+        return false;
+    }
+}
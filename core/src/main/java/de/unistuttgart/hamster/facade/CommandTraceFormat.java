@@ -0,0 +1,62 @@
+package de.unistuttgart.hamster.facade;
+
+/**
+ * Constants of the binary command trace format.
+ * <p>
+ * A command trace consists of the magic bytes {@code KTRC} followed by a version byte and one record per
+ * executed command, undo, spawned ladybug, reset or loaded territory until the end of the trace. Each
+ * record starts with a byte holding the opcode in its upper 3 bits and the ladybug in its lower 5 bits.
+ * <p>
+ * Ladybugs are identified by trace local ids, assigned in the order the ladybugs appear in the trace and
+ * never reused: a {@code LOAD} record assigns the next id to the default ladybug of the loaded territory,
+ * a {@code SPAWN} record the next id to the new ladybug. Ids {@value #ESCAPED_ACTOR} and above store
+ * {@value #ESCAPED_ACTOR} in the record byte, followed by the id.
+ * <p>
+ * A {@code WRITE} record is followed by the length and the UTF-8 bytes of the text, a {@code SPAWN}
+ * record by the column, the row and a byte with the ordinal of the direction of the new ladybug.
+ * {@code UNDO} records undo the last command and store 0 in their lower 5 bits. {@code GAME} records
+ * change the game instead of a ladybug and store the operation in their lower 5 bits: {@code RESET}
+ * resets the game and {@code LOAD} loads the territory which follows it as its length and its bytes in
+ * the {@link BinaryTerritoryFormat}. All numbers except the direction are encoded as unsigned variable
+ * length integers with 7 bits per byte, like in the {@link BinaryTerritoryFormat}.
+ */
+final class CommandTraceFormat {
+    static final byte[] MAGIC = {'K', 'T', 'R', 'C'};
+    static final int VERSION = 2;
+
+    static final int MOVE = 0;
+    static final int TURN_LEFT = 1;
+    static final int PICK_CLOVER = 2;
+    static final int PUT_CLOVER = 3;
+    static final int WRITE = 4;
+    static final int SPAWN = 5;
+    static final int UNDO = 6;
+    static final int GAME = 7;
+
+    static final int RESET = 0;
+    static final int LOAD = 1;
+
+    static final int OPCODE_SHIFT = 5;
+    static final int ESCAPED_ACTOR = 0x1F;
+
+    private CommandTraceFormat() { }
+
+    /**
+     * @param kind the kind of an executed command
+     * @return the opcode of the command
+     */
+    static int opcodeOf(final CommandObserver.Kind kind) {
+        switch (kind) {
+            case MOVE:
+                return MOVE;
+            case TURN_LEFT:
+                return TURN_LEFT;
+            case PICK_CLOVER:
+                return PICK_CLOVER;
+            case PUT_CLOVER:
+                return PUT_CLOVER;
+            default:
+                return WRITE;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.hamster.hamster.ReadOnlyHamster;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Size;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.LogEntry;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
+import javafx.collections.ListChangeListener;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
+import static de.unistuttgart.hamster.facade.CommandTraceFormat.*;
+
+/**
+ * Records the ladybug commands executed in a game as a compact binary trace, see {@link CommandTraceFormat}.
+ * The commands are observed from their effects and log entries, see {@link CommandObserver}, so the recorder
+ * works with any program without changing it. The trace starts with the territory of the game when recording
+ * started. Resets, territories loaded with a {@link TerritoryLoader}, undone commands and ladybugs created
+ * while recording are recorded as well, so that a {@link CommandTraceReplayer} can repeat them. Most commands
+ * take a single byte, which is written to a buffer on the thread executing the command.
+ * <p>
+ * Undos are recognized by the removal of the log entry of the undone command. They are written before the
+ * next record, so that the log entries removed by a reset are not taken for undos.
+ */
+public final class CommandTraceRecorder implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final HamsterGame game;
+    private final Territory territory;
+    private final OutputStream out;
+    private final Map<Object, Integer> ladybugIds = new WeakHashMap<>();
+    private final CommandObserver commandObserver;
+    private int nextLadybugId = 0;
+    private int pendingUndoCount = 0;
+    private boolean isReset = false;
+    private boolean isBulkLoading = false;
+    private volatile boolean isClosed = false;
+
+    private final CommandObserver.Listener commandListener = new CommandObserver.Listener() {
+        @Override
+        public void commandExecuted(final LogEntry entry, final CommandObserver.Kind kind,
+                                    final Location lastChangedLocation, final int changeCount) {
+            recordCommand(entry, kind);
+        }
+
+        @Override
+        public void logEntriesRemoved(final int count) {
+            recordLogEntriesRemoved(count);
+        }
+    };
+
+    private final ListChangeListener<Tile> tilesChangedListener = change -> recordReset();
+
+    private final BulkLoadListener bulkLoadListener = new BulkLoadListener() {
+        @Override
+        public void bulkLoadStarted() {
+            setBulkLoading(true);
+        }
+
+        @Override
+        public void bulkLoadCommitted() {
+            setBulkLoading(false);
+            recordLoad();
+        }
+    };
+
+    private final Consumer<ReadOnlyHamster> registrationListener = this::recordSpawn;
+
+    /**
+     * Starts recording the commands of the game to the file, replacing its content.
+     * @param game the game whose commands are recorded, with its territory already loaded
+     * @param file the file to write the trace to
+     * @return the started recorder, which has to be closed to complete the trace
+     * @throws IOException if the file cannot be written
+     */
+    public static CommandTraceRecorder recordToFile(final HamsterGame game, final Path file) throws IOException {
+        return new CommandTraceRecorder(game, Files.newOutputStream(file));
+    }
+
+    /**
+     * Starts recording the commands of the game to the stream.
+     * @param game the game whose commands are recorded, with its territory already loaded
+     * @param outputStream the stream to write the trace to, closed when this recorder is closed
+     * @throws IOException if the start of the trace cannot be written
+     */
+    public CommandTraceRecorder(final HamsterGame game, final OutputStream outputStream) throws IOException {
+        this.game = game;
+        this.territory = game.getTerritory();
+        this.out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        out.write(MAGIC);
+        out.write(VERSION);
+        final LadybugRegistry ladybugRegistry = LadybugRegistry.of(territory);
+        try {
+            synchronized (this) {
+                recordReset();
+                recordLoad();
+                territory.getInternalTerritory().getTileContents().stream()
+                        .filter(ReadOnlyHamster.class::isInstance)
+                        .map(ReadOnlyHamster.class::cast)
+                        .forEach(this::recordSpawn);
+            }
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+        territory.getInternalTerritory().tilesProperty().addListener(tilesChangedListener);
+        TerritoryBulkLoads.addBulkLoadListener(game, bulkLoadListener);
+        ladybugRegistry.addRegistrationListener(registrationListener);
+        this.commandObserver = new CommandObserver(game, commandListener);
+    }
+
+    /**
+     * Stops recording and closes the stream.
+     * @throws IOException if the trace cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+        }
+        commandObserver.close();
+        territory.getInternalTerritory().tilesProperty().removeListener(tilesChangedListener);
+        TerritoryBulkLoads.removeBulkLoadListener(game, bulkLoadListener);
+        LadybugRegistry.of(territory).removeRegistrationListener(registrationListener);
+        synchronized (this) {
+            try {
+                writeUndos();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private synchronized void recordCommand(final LogEntry entry, final CommandObserver.Kind kind) {
+        final Integer id = entry.getActor() == null ? null : ladybugIds.get(entry.getActor());
+        if (isClosed || id == null) {
+            return;
+        }
+        write(() -> {
+            final int opcode = opcodeOf(kind);
+            writeRecordStart(opcode, id);
+            if (opcode == WRITE) {
+                final byte[] text = String.valueOf(entry.getMessage()).getBytes(StandardCharsets.UTF_8);
+                BinaryTerritoryFormat.writeVarInt(out, text.length);
+                out.write(text);
+            }
+        });
+    }
+
+    /*
+     * The log of a reset game is cleared, these removals are no undos.
+     */
+    private synchronized void recordLogEntriesRemoved(final int count) {
+        if (!isReset) {
+            pendingUndoCount += count;
+        }
+    }
+
+    /*
+     * Tiles are replaced by a reset and at the start of each load. Replacements within a load are covered by
+     * its LOAD record, consecutive resets are written once.
+     */
+    private synchronized void recordReset() {
+        if (isClosed || isBulkLoading || isReset) {
+            return;
+        }
+        pendingUndoCount = 0;
+        write(() -> writeRecordStart(GAME, RESET));
+        isReset = true;
+    }
+
+    private synchronized void setBulkLoading(final boolean isBulkLoading) {
+        this.isBulkLoading = isBulkLoading;
+    }
+
+    /*
+     * Records the current territory, ladybugs which entered it during the load are part of it.
+     */
+    private synchronized void recordLoad() {
+        final ReadOnlyHamster defaultLadybug = territory.getDefaultHamster();
+        if (isClosed || defaultLadybug.getCurrentTile() == null) {
+            return;
+        }
+        final byte[] loadedTerritory = currentTerritory(defaultLadybug);
+        write(() -> {
+            writeRecordStart(GAME, LOAD);
+            BinaryTerritoryFormat.writeVarInt(out, loadedTerritory.length);
+            out.write(loadedTerritory);
+        });
+        ladybugIds.put(defaultLadybug, nextLadybugId++);
+    }
+
+    private synchronized void recordSpawn(final ReadOnlyHamster ladybug) {
+        if (isClosed || isBulkLoading || ladybugIds.containsKey(ladybug) || ladybug.getCurrentTile() == null) {
+            return;
+        }
+        final int id = nextLadybugId++;
+        ladybugIds.put(ladybug, id);
+        write(() -> {
+            final Location location = ladybug.getCurrentTile().getLocation();
+            writeRecordStart(SPAWN, id);
+            BinaryTerritoryFormat.writeVarInt(out, location.getColumn());
+            BinaryTerritoryFormat.writeVarInt(out, location.getRow());
+            out.write(ladybug.getDirection().ordinal());
+        });
+    }
+
+    /*
+     * Writes the territory in the binary territory format: walls row by row and clovers in row major order.
+     */
+    private byte[] currentTerritory(final ReadOnlyHamster defaultLadybug) {
+        final Size size = territory.getInternalTerritory().stageSizeProperty().get();
+        final int columnCount = size.getColumnCount();
+        final TileContentIndex index = TileContentIndex.of(territory);
+        final BitSet walls = new BitSet();
+        final Map<Integer, Integer> cloverCounts = new TreeMap<>();
+        for (final Tile tile : territory.getInternalTerritory().tilesProperty()) {
+            final int tileIndex = tile.getLocation().getRow() * columnCount + tile.getLocation().getColumn();
+            walls.set(tileIndex, index.hasWall(tile));
+            if (index.getCloverCount(tile) > 0) {
+                cloverCounts.put(tileIndex, index.getCloverCount(tile));
+            }
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final BinaryTerritoryWriter writer = new BinaryTerritoryWriter(bytes);
+        writer.initTerritory(columnCount, size.getRowCount());
+        for (int row = 0; row < size.getRowCount(); row++) {
+            final int rowStart = row * columnCount;
+            for (int wall = walls.nextSetBit(rowStart); wall >= 0 && wall < rowStart + columnCount; wall = walls.nextSetBit(wall + 1)) {
+                writer.addWall(new Location(wall - rowStart, row));
+            }
+            writer.endRow(row);
+        }
+        writer.initDefaultLadybug(defaultLadybug.getCurrentTile().getLocation(), defaultLadybug.getDirection());
+        cloverCounts.forEach((tileIndex, count) -> writer.addClover(new Location(tileIndex % columnCount, tileIndex / columnCount), count));
+        writer.finishTerritory();
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    /*
+     * Writes a record other than a reset, preceded by the pending undos.
+     */
+    private void write(final Write write) {
+        try {
+            writeUndos();
+            write.run();
+            isReset = false;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeUndos() throws IOException {
+        for (; pendingUndoCount > 0; pendingUndoCount--) {
+            writeRecordStart(UNDO, 0);
+        }
+    }
+
+    private void writeRecordStart(final int opcode, final int actor) throws IOException {
+        if (actor < ESCAPED_ACTOR) {
+            out.write(opcode << OPCODE_SHIFT | actor);
+        } else {
+            out.write(opcode << OPCODE_SHIFT | ESCAPED_ACTOR);
+            BinaryTerritoryFormat.writeVarInt(out, actor);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.unistuttgart.hamster.facade.CommandTraceFormat.*;
+
+/**
+ * Re-executes a trace recorded by a {@link CommandTraceRecorder} against a game, without running the
+ * program which was recorded. The trace starts with a reset and the territory it was recorded on, so the
+ * game may be in any mode. It is started before the first command after each reset and the commands are
+ * executed at maximum speed.
+ */
+public final class CommandTraceReplayer {
+    private static final double MAXIMUM_SPEED = 10.0;
+
+    private final HamsterGame game;
+    private final List<Ladybug> ladybugs = new ArrayList<>();
+    private boolean isStarted = false;
+
+    /**
+     * @param game the game to replay traces on
+     */
+    public CommandTraceReplayer(final HamsterGame game) {
+        this.game = game;
+    }
+
+    /**
+     * Replays the trace stored in the file.
+     * @param file the trace file
+     * @throws IOException if the trace cannot be read or is malformed
+     */
+    public void replay(final Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            replay(in);
+        }
+    }
+
+    /**
+     * Replays the trace read from the stream, starting the game and stopping it when the trace ends.
+     * @param inputStream the stream to read the trace from, not closed by this method
+     * @throws IOException if the trace cannot be read or is malformed
+     */
+    public void replay(final InputStream inputStream) throws IOException {
+        final InputStream in = new BufferedInputStream(inputStream);
+        readHeader(in);
+        ladybugs.clear();
+        isStarted = false;
+        int next = in.read();
+        while (next >= 0) {
+            final int actor = (next & ESCAPED_ACTOR) == ESCAPED_ACTOR
+                    ? BinaryTerritoryFormat.readVarInt(in)
+                    : next & ESCAPED_ACTOR;
+            replayRecord(next >>> OPCODE_SHIFT, actor, in);
+            next = in.read();
+        }
+        startIfReset();
+        game.stopGame();
+    }
+
+    private void readHeader(final InputStream in) throws IOException {
+        final byte[] magic = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Trace error: not a command trace.");
+        }
+        final int version = in.read();
+        if (version != VERSION) {
+            throw new IOException("Trace error: unsupported command trace version " + version + ".");
+        }
+    }
+
+    private void replayRecord(final int opcode, final int actor, final InputStream in) throws IOException {
+        if (opcode == GAME) {
+            replayGameRecord(actor, in);
+            return;
+        }
+        startIfReset();
+        if (opcode == UNDO) {
+            game.getCommandStack().undo();
+            return;
+        }
+        if (opcode == SPAWN) {
+            final int column = BinaryTerritoryFormat.readVarInt(in);
+            final int row = BinaryTerritoryFormat.readVarInt(in);
+            final int ordinal = BinaryTerritoryFormat.readByte(in);
+            if (ordinal >= Direction.values().length || actor != ladybugs.size()) {
+                throw new IOException("Trace error: malformed spawn of ladybug " + actor + ".");
+            }
+            ladybugs.add(new Ladybug(game.getTerritory(), new Location(column, row), Direction.values()[ordinal]));
+            return;
+        }
+        if (actor >= ladybugs.size()) {
+            throw new IOException("Trace error: unknown ladybug " + actor + ".");
+        }
+        final Ladybug ladybug = ladybugs.get(actor);
+        switch (opcode) {
+            case MOVE:
+                ladybug.move();
+                break;
+            case TURN_LEFT:
+                ladybug.turnLeft();
+                break;
+            case PICK_CLOVER:
+                ladybug.pickClover();
+                break;
+            case PUT_CLOVER:
+                ladybug.putClover();
+                break;
+            case WRITE:
+                final byte[] text = in.readNBytes(BinaryTerritoryFormat.readVarInt(in));
+                ladybug.write(new String(text, StandardCharsets.UTF_8));
+                break;
+            default:
+                throw new IOException("Trace error: unknown opcode " + opcode + ".");
+        }
+    }
+
+    private void replayGameRecord(final int operation, final InputStream in) throws IOException {
+        switch (operation) {
+            case RESET:
+                game.hardReset();
+                isStarted = false;
+                break;
+            case LOAD:
+                final int length = BinaryTerritoryFormat.readVarInt(in);
+                final byte[] territory = in.readNBytes(length);
+                if (territory.length != length) {
+                    throw new IOException("Trace error: truncated territory.");
+                }
+                TerritoryLoader.initializeFor(game).loadFromBinaryInputStream(new ByteArrayInputStream(territory));
+                ladybugs.add(game.getTerritory().getDefaultHamster());
+                break;
+            default:
+                throw new IOException("Trace error: unknown game operation " + operation + ".");
+        }
+    }
+
+    /*
+     * A reset game is in mode INITIALIZING until it is started.
+     */
+    private void startIfReset() {
+        if (!isStarted) {
+            game.setSpeed(MAXIMUM_SPEED);
+            game.startGame();
+            isStarted = true;
+        }
+    }
+}
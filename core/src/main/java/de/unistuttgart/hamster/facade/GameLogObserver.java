@@ -0,0 +1,55 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.LogEntry;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Passes each entry added to the log of a game to a consumer. Every ladybug command adds an entry
+ * to the game log, so this is also the stream of executed commands.
+ */
+public final class GameLogObserver {
+    private final ObservableList<LogEntry> logEntries;
+    private final ListChangeListener<LogEntry> logListener;
+
+    /**
+     * Starts observing the log of the provided game.
+     * @param game the game whose log is observed
+     * @param onLogEntry receives every new log entry, on the thread which executed the command
+     */
+    public GameLogObserver(final HamsterGame game, final Consumer<LogEntry> onLogEntry) {
+        this(game, onLogEntry, count -> { });
+    }
+
+    /**
+     * Starts observing the log of the provided game.
+     * @param game the game whose log is observed
+     * @param onLogEntry receives every new log entry, on the thread which executed the command
+     * @param onLogEntriesRemoved receives the number of removed entries, e.g. 1 for an undone command,
+     *                            on the thread which removed them
+     */
+    public GameLogObserver(final HamsterGame game, final Consumer<LogEntry> onLogEntry, final IntConsumer onLogEntriesRemoved) {
+        this.logEntries = game.getGameLog().logEntriesProperty();
+        this.logListener = change -> {
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    onLogEntriesRemoved.accept(change.getRemovedSize());
+                }
+                if (change.wasAdded()) {
+                    change.getAddedSubList().forEach(onLogEntry);
+                }
+            }
+        };
+        logEntries.addListener(logListener);
+    }
+
+    /**
+     * Stops observing the log.
+     */
+    public void detach() {
+        logEntries.removeListener(logListener);
+    }
+}
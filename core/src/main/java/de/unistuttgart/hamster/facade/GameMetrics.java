@@ -0,0 +1,170 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.LogEntry;
+import javafx.collections.ObservableList;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters and latency histograms of the hot paths of a game: the executed commands, the growth of the
+ * game log and the time the presenter spends updating cells. The waits of the simulation for the JavaFX
+ * application thread and the depth of the UI update queue are shared by all games, as all windows share
+ * the JavaFX application thread.
+ * <p>
+ * The metrics are registered as MBean {@code de.unistuttgart.hamster:type=GameMetrics,game=<n>} on the platform
+ * MBean server until they are closed. They do not reference the game itself, only its log.
+ */
+public final class GameMetrics implements GameMetricsMXBean, AutoCloseable {
+    private static final AtomicInteger gameCounter = new AtomicInteger();
+    private static final LatencyHistogram fxThreadWaits = new LatencyHistogram();
+    private static volatile LongSupplier uiUpdateQueueDepth = () -> 0;
+
+    private final ObservableList<LogEntry> logEntries;
+    private final LongAdder commandCount = new LongAdder();
+    private final LatencyHistogram cellUpdates = new LatencyHistogram();
+    private final GameLogObserver logObserver;
+    private ObjectName objectName;
+
+    private long rateSampleNanos = System.nanoTime();
+    private long rateSampleCount = 0;
+    private double commandsPerSecond = 0;
+
+    /**
+     * Starts collecting the metrics of the game and registers them as MBean.
+     * They have to be closed once they are no longer needed.
+     * @param game the game whose metrics are collected
+     */
+    public GameMetrics(final HamsterGame game) {
+        this.logEntries = game.getGameLog().logEntriesProperty();
+        this.logObserver = new GameLogObserver(game, entry -> commandCount.increment());
+        register();
+    }
+
+    /**
+     * Records how long the simulation waited for the JavaFX application thread.
+     * @param nanos the duration of the wait
+     */
+    public static void recordFxThreadWait(final long nanos) {
+        fxThreadWaits.record(nanos);
+    }
+
+    /**
+     * @param depth supplies the number of pending updates of the UI
+     */
+    public static void setUiUpdateQueueDepthSupplier(final LongSupplier depth) {
+        uiUpdateQueueDepth = depth;
+    }
+
+    /**
+     * @return the histogram of the time spent configuring a cell of the view model
+     */
+    public LatencyHistogram getCellUpdates() {
+        return cellUpdates;
+    }
+
+    /**
+     * Stops collecting and unregisters the MBean.
+     */
+    @Override
+    public synchronized void close() {
+        logObserver.detach();
+        try {
+            if (objectName != null) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            }
+        } catch (final JMException e) {
+            // already unregistered
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getCommandCount() {
+        return commandCount.sum();
+    }
+
+    /*
+     * The rate since the previous sample, sampled at most once per second.
+     */
+    @Override
+    public synchronized double getCommandsPerSecond() {
+        final long now = System.nanoTime();
+        final long elapsed = now - rateSampleNanos;
+        if (elapsed >= 1_000_000_000L) {
+            final long count = commandCount.sum();
+            commandsPerSecond = (count - rateSampleCount) * 1e9 / elapsed;
+            rateSampleNanos = now;
+            rateSampleCount = count;
+        }
+        return commandsPerSecond;
+    }
+
+    @Override
+    public long getLogSize() {
+        return logEntries.size();
+    }
+
+    @Override
+    public long getCellUpdateCount() {
+        return cellUpdates.getCount();
+    }
+
+    @Override
+    public long getCellUpdateMeanNanos() {
+        return cellUpdates.getMeanNanos();
+    }
+
+    @Override
+    public long getCellUpdateP99Nanos() {
+        return cellUpdates.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getCellUpdateMaximumNanos() {
+        return cellUpdates.getMaximumNanos();
+    }
+
+    @Override
+    public long getFxThreadWaitCount() {
+        return fxThreadWaits.getCount();
+    }
+
+    @Override
+    public long getFxThreadWaitMeanNanos() {
+        return fxThreadWaits.getMeanNanos();
+    }
+
+    @Override
+    public long getFxThreadWaitP99Nanos() {
+        return fxThreadWaits.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getFxThreadWaitMaximumNanos() {
+        return fxThreadWaits.getMaximumNanos();
+    }
+
+    @Override
+    public long getUiUpdateQueueDepth() {
+        return uiUpdateQueueDepth.getAsLong();
+    }
+
+    private void register() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            objectName = new ObjectName("de.unistuttgart.hamster:type=GameMetrics,game=" + gameCounter.getAndIncrement());
+            server.registerMBean(this, objectName);
+        } catch (final InstanceAlreadyExistsException e) {
+            objectName = null;
+        } catch (final JMException e) {
+            throw new IllegalStateException("failed to register the game metrics", e);
+        }
+    }
+}
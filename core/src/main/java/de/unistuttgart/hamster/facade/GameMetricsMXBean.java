@@ -0,0 +1,32 @@
+package de.unistuttgart.hamster.facade;
+
+/**
+ * Management interface of the {@link GameMetrics} of a game. Durations are in nanoseconds,
+ * percentiles are upper bounds with a relative error below a factor of two.
+ */
+public interface GameMetricsMXBean {
+
+    long getCommandCount();
+
+    double getCommandsPerSecond();
+
+    long getLogSize();
+
+    long getCellUpdateCount();
+
+    long getCellUpdateMeanNanos();
+
+    long getCellUpdateP99Nanos();
+
+    long getCellUpdateMaximumNanos();
+
+    long getFxThreadWaitCount();
+
+    long getFxThreadWaitMeanNanos();
+
+    long getFxThreadWaitP99Nanos();
+
+    long getFxThreadWaitMaximumNanos();
+
+    long getUiUpdateQueueDepth();
+}
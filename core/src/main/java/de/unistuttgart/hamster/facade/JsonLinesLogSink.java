@@ -0,0 +1,219 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Color;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.LogEntry;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static de.unistuttgart.iste.sqa.mpw.framework.utils.Preconditions.*;
+
+/**
+ * Writes the log entries of a game as JSON Lines, one object per entry with the fields
+ * actor (the number of the ladybug, -1 if the entry was not logged by a ladybug), color (the color of
+ * the ladybug given by its number, null if the entry was not logged by a ladybug), message,
+ * step (counted from 1) and timestamp (milliseconds since the epoch).
+ * <p>
+ * Entries are handed to a background thread through a bounded queue and written in batches, so
+ * the thread executing the commands never waits for I/O. If the queue is full, entries are dropped
+ * and counted instead, see {@link #getDroppedEntryCount()}.
+ */
+public final class JsonLinesLogSink implements AutoCloseable {
+
+    /**
+     * The default number of entries which may wait to be written.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 65536;
+
+    private static final int MAXIMUM_BATCH_SIZE = 4096;
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final HamsterGame game;
+    private final IntFunction<Color> colorOfLadybug;
+    private final GameLogObserver logObserver;
+    private final BlockingQueue<Record> queue;
+    private final Writer writer;
+    private final Thread writerThread;
+    private final AtomicLong droppedEntryCount = new AtomicLong();
+    private volatile boolean isClosed = false;
+    private volatile IOException writeError = null;
+    private long step = 0;
+
+    /*
+     * The data of an entry captured on the command thread, formatted on the writer thread.
+     */
+    private static final class Record {
+        final int actor;
+        final Color color;
+        final String message;
+        final long step;
+        final long timestamp;
+
+        Record(final int actor, final Color color, final String message, final long step, final long timestamp) {
+            this.actor = actor;
+            this.color = color;
+            this.message = message;
+            this.step = step;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Starts writing the log entries of the game to the file, replacing its content.
+     * @param game the game whose log is written
+     * @param file the file to write to
+     * @param colorOfLadybug maps the number of a ladybug to the color it is shown in
+     * @return the started sink, which has to be closed to write all remaining entries
+     * @throws IOException if the file cannot be opened
+     */
+    public static JsonLinesLogSink writeToFile(final HamsterGame game, final Path file,
+                                               final IntFunction<Color> colorOfLadybug) throws IOException {
+        return new JsonLinesLogSink(game, Files.newOutputStream(file), DEFAULT_QUEUE_CAPACITY, colorOfLadybug);
+    }
+
+    /**
+     * Starts writing the log entries of the game to the stream.
+     * @param game the game whose log is written
+     * @param outputStream the stream to write to, closed when this sink is closed
+     * @param queueCapacity the maximum number of entries which may wait to be written
+     * @param colorOfLadybug maps the number of a ladybug to the color it is shown in
+     */
+    public JsonLinesLogSink(final HamsterGame game, final OutputStream outputStream, final int queueCapacity,
+                            final IntFunction<Color> colorOfLadybug) {
+        checkNotNull(game);
+        checkNotNull(outputStream);
+        checkNotNull(colorOfLadybug);
+        checkArgument(queueCapacity > 0, "queue capacity has to be positive");
+        this.game = game;
+        this.colorOfLadybug = colorOfLadybug;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.writerThread = new Thread(this::writeEntries, "log-sink-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        this.logObserver = new GameLogObserver(game, this::logEntryAdded);
+    }
+
+    /**
+     * @return the number of entries which were not written because the queue was full
+     */
+    public long getDroppedEntryCount() {
+        return droppedEntryCount.get();
+    }
+
+    /**
+     * Stops observing the log, writes all queued entries and closes the stream.
+     * @throws IOException if writing an entry or closing the stream failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+        logObserver.detach();
+        isClosed = true;
+        try {
+            writerThread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    private void logEntryAdded(final LogEntry entry) {
+        step++;
+        final Object actor = entry.getActor();
+        final int number = LadybugRegistry.of(game.getTerritory()).getNumber(actor);
+        final Record record = new Record(number, number < 0 ? null : colorOfLadybug.apply(number),
+                entry.getMessage(), step, System.currentTimeMillis());
+        if (!queue.offer(record)) {
+            droppedEntryCount.incrementAndGet();
+        }
+    }
+
+    private void writeEntries() {
+        final List<Record> batch = new ArrayList<>(MAXIMUM_BATCH_SIZE);
+        final StringBuilder line = new StringBuilder();
+        try {
+            while (!isClosed || !queue.isEmpty()) {
+                final Record first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAXIMUM_BATCH_SIZE - 1);
+                for (final Record record : batch) {
+                    line.setLength(0);
+                    appendJson(line, record);
+                    writer.write(line.toString());
+                }
+                writer.flush();
+                batch.clear();
+            }
+        } catch (final IOException e) {
+            writeError = e;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void appendJson(final StringBuilder line, final Record record) {
+        line.append("{\"actor\":").append(record.actor);
+        line.append(",\"color\":");
+        if (record.color == null) {
+            line.append("null");
+        } else {
+            line.append('"').append(record.color.name()).append('"');
+        }
+        line.append(",\"message\":\"");
+        appendEscaped(line, String.valueOf(record.message));
+        line.append("\",\"step\":").append(record.step);
+        line.append(",\"timestamp\":").append(record.timestamp);
+        line.append("}\n");
+    }
+
+    private static void appendEscaped(final StringBuilder line, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package de.unistuttgart.hamster.facade;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of an executed ladybug command. Disabled by default, enable it in the
+ * recording settings with {@code de.unistuttgart.hamster.LadybugCommand#enabled=true}. Commands are only
+ * observed while such a recording is running, see {@link CommandEvents}.
+ */
+@Name(LadybugCommandEvent.NAME)
+@Label("Ladybug Command")
+@Category({"Hamster", "Model"})
+@Description("A command executed by a ladybug, spanning from its first change of the territory to its log entry")
+@Enabled(false)
+@StackTrace(false)
+final class LadybugCommandEvent extends Event {
+    static final String NAME = "de.unistuttgart.hamster.LadybugCommand";
+
+    @Label("Actor")
+    @Description("Number of the ladybug, -1 if the command was not executed by a ladybug")
+    int actor;
+
+    @Label("Command")
+    String command;
+
+    @Label("Column")
+    @Description("Column of the last tile changed by the command, -1 if no tile changed")
+    int column;
+
+    @Label("Row")
+    @Description("Row of the last tile changed by the command, -1 if no tile changed")
+    int row;
+
+    @Label("Batch Size")
+    @Description("Number of tile content changes made by the command")
+    int batchSize;
+}
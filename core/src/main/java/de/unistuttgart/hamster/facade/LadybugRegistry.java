@@ -0,0 +1,148 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.hamster.hamster.ReadOnlyHamster;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
+import javafx.collections.ListChangeListener;
+
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Numbers the ladybugs of a territory in the order they enter it, views derive the color of a ladybug
+ * from its number. The registry is maintained from the content changes reported by the
+ * {@link TileContentIndex}, so registering a ladybug and looking up its number take constant time
+ * regardless of the territory size. A ladybug keeps its number while it is part of the territory.
+ * Once the tiles it was on are removed, e.g. by a hard reset or by loading a new territory, its number
+ * is released and handed out again, lowest first.
+ */
+public final class LadybugRegistry {
+    /*
+     * The registry is only referenced weakly, as its ladybugs refer to the territory. It is kept alive
+     * by its listeners on the territory and its content index.
+     */
+    private static final Map<Territory, WeakReference<LadybugRegistry>> instances = new WeakHashMap<>();
+
+    private final Map<ReadOnlyHamster, Integer> numberByLadybug = new ConcurrentHashMap<>();
+    // guarded by numberByLadybug
+    private final BitSet usedNumbers = new BitSet();
+    private final List<Consumer<ReadOnlyHamster>> registrationListeners = new CopyOnWriteArrayList<>();
+
+    private final TileContentListener tileContentListener = new TileContentListener() {
+        @Override
+        public void contentAdded(final Tile tile, final Object content) {
+            if (content instanceof ReadOnlyHamster) {
+                register((ReadOnlyHamster) content);
+            }
+        }
+
+        @Override
+        public void contentRemoved(final Tile tile, final Object content) {
+        }
+    };
+
+    private final ListChangeListener<Tile> tilesChangedListener = change -> {
+        while (change.next()) {
+            if (change.wasRemoved()) {
+                releaseLadybugsOn(change.getRemoved());
+            }
+        }
+    };
+
+    private LadybugRegistry(final Territory territory) {
+        TileContentIndex.of(territory).addTileContentListener(tileContentListener);
+        territory.getInternalTerritory().tilesProperty().addListener(tilesChangedListener);
+        territory.getInternalTerritory().getTileContents().stream()
+                .filter(ReadOnlyHamster.class::isInstance)
+                .map(ReadOnlyHamster.class::cast)
+                .forEach(this::register);
+    }
+
+    /**
+     * Returns the ladybug registry of the provided territory, creating it on first use.
+     * @param territory the territory whose ladybugs are registered
+     * @return the ladybug registry of the territory
+     */
+    public static LadybugRegistry of(final Territory territory) {
+        synchronized (instances) {
+            final WeakReference<LadybugRegistry> reference = instances.get(territory);
+            LadybugRegistry registry = reference == null ? null : reference.get();
+            if (registry == null) {
+                registry = new LadybugRegistry(territory);
+                instances.put(territory, new WeakReference<>(registry));
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * @param actor an actor of the territory, e.g. the actor of a log entry
+     * @return the number of the ladybug, the lowest number not in use when the ladybug entered the territory,
+     *         or -1 if the actor is no registered ladybug
+     */
+    public int getNumber(final Object actor) {
+        final Integer number = actor == null ? null : numberByLadybug.get(actor);
+        return number == null ? -1 : number;
+    }
+
+    /**
+     * @return the number of ladybugs currently registered
+     */
+    public int size() {
+        return numberByLadybug.size();
+    }
+
+    /**
+     * Registers a listener which is called once for each newly registered ladybug.
+     * @param listener the listener to call
+     */
+    public void addRegistrationListener(final Consumer<ReadOnlyHamster> listener) {
+        registrationListeners.add(listener);
+    }
+
+    public void removeRegistrationListener(final Consumer<ReadOnlyHamster> listener) {
+        registrationListeners.remove(listener);
+    }
+
+    private void register(final ReadOnlyHamster ladybug) {
+        final boolean isNew;
+        synchronized (numberByLadybug) {
+            isNew = !numberByLadybug.containsKey(ladybug);
+            if (isNew) {
+                final int number = usedNumbers.nextClearBit(0);
+                usedNumbers.set(number);
+                numberByLadybug.put(ladybug, number);
+            }
+        }
+        if (isNew) {
+            registrationListeners.forEach(listener -> listener.accept(ladybug));
+        }
+    }
+
+    /*
+     * Releases the ladybugs which were on the removed tiles or are on no tile at all. Tiles are only
+     * removed when the whole territory is replaced, so no ladybug is moving at that time.
+     */
+    private void releaseLadybugsOn(final List<? extends Tile> removedTiles) {
+        final Set<Tile> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removed.addAll(removedTiles);
+        synchronized (numberByLadybug) {
+            numberByLadybug.entrySet().removeIf(entry -> {
+                final Tile tile = entry.getKey().getCurrentTile();
+                if (tile == null || removed.contains(tile)) {
+                    usedNumbers.clear(entry.getValue());
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package de.unistuttgart.hamster.facade;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a territory file line by line from a memory mapped file without creating strings.
+ * The file is mapped in windows of bounded size, so arbitrarily large files can be read
+ * with constant heap usage.
+ */
+final class MappedTerritoryReader implements Closeable {
+    private static final long MAPPING_WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final int END_OF_FILE = -1;
+
+    /**
+     * Receives the tile codes of a row in column order.
+     */
+    @FunctionalInterface
+    interface TileCodeConsumer {
+        void accept(char tileCode, int column, int row);
+    }
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    MappedTerritoryReader(final Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        mapWindowAt(0);
+    }
+
+    /**
+     * Reads a line containing a single non negative number.
+     * @return the number of the line
+     */
+    int readNumberLine() throws IOException {
+        int result = 0;
+        int digits = 0;
+        int next = read();
+        while (next != '\n' && next != END_OF_FILE) {
+            if (next != '\r') {
+                if (next < '0' || next > '9') {
+                    throw new NumberFormatException("Territory error: unexpected character '" + (char) next + "' in number.");
+                }
+                result = Math.addExact(Math.multiplyExact(result, 10), next - '0');
+                digits++;
+            }
+            next = read();
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Territory error: expected a number.");
+        }
+        return result;
+    }
+
+    /**
+     * Reads a line of tile codes and passes the first columnCount codes to the consumer.
+     * Additional characters at the end of the line are ignored.
+     */
+    void readTileRow(final int row, final int columnCount, final TileCodeConsumer consumer) throws IOException {
+        for (int column = 0; column < columnCount; column++) {
+            final int next = read();
+            if (next == '\n' || next == '\r' || next == END_OF_FILE) {
+                throw new RuntimeException("Territory error: row " + row + " is shorter than " + columnCount + " columns.");
+            }
+            consumer.accept((char) next, column, row);
+        }
+        skipToNextLine();
+    }
+
+    private void skipToNextLine() throws IOException {
+        int next = read();
+        while (next != '\n' && next != END_OF_FILE) {
+            next = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (!window.hasRemaining()) {
+            final long nextWindowStart = windowStart + window.limit();
+            if (nextWindowStart >= fileSize) {
+                return END_OF_FILE;
+            }
+            mapWindowAt(nextWindowStart);
+        }
+        return window.get() & 0xFF;
+    }
+
+    private void mapWindowAt(final long position) throws IOException {
+        this.windowStart = position;
+        this.window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPING_WINDOW_SIZE, fileSize - position));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,137 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Immutable result of parsing a territory. It can be loaded into any number of games with
+ * {@link TerritoryLoader#loadFromParsedTerritory(ParsedTerritory)} without parsing the territory again.
+ */
+public final class ParsedTerritory {
+    private final int columnCount;
+    private final int rowCount;
+    private final BitSet walls;
+    private final Location defaultLadybugLocation;
+    private final Direction defaultLadybugDirection;
+    private final int[] cloverTileIndices;
+    private final int[] cloverCounts;
+
+    private ParsedTerritory(final Recorder recorder) {
+        this.columnCount = recorder.columnCount;
+        this.rowCount = recorder.rowCount;
+        this.walls = (BitSet) recorder.walls.clone();
+        this.defaultLadybugLocation = recorder.defaultLadybugLocation;
+        this.defaultLadybugDirection = recorder.defaultLadybugDirection;
+        this.cloverTileIndices = Arrays.copyOf(recorder.cloverTileIndices, recorder.cloverTileCount);
+        this.cloverCounts = Arrays.copyOf(recorder.cloverCounts, recorder.cloverTileCount);
+    }
+
+    /**
+     * Parses a territory encoded in a territory string.
+     * @param inputStream the InputStream which is used to get the territory lines
+     * @return the parsed territory
+     */
+    public static ParsedTerritory fromInputStream(final InputStream inputStream) throws IOException {
+        final Recorder recorder = new Recorder();
+        TerritoryLoader.initializeFor(recorder).loadFromInputStream(inputStream);
+        return recorder.build();
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return a rough estimate of the heap used by this territory in bytes
+     */
+    long estimatedSizeInBytes() {
+        return walls.size() / Byte.SIZE + cloverTileIndices.length * (long) (Integer.BYTES + Integer.BYTES);
+    }
+
+    void replayInto(final TerritorySink sink) {
+        sink.initTerritory(columnCount, rowCount);
+        int wall = walls.nextSetBit(0);
+        for (int row = 0; row < rowCount; row++) {
+            final int rowEnd = (row + 1) * columnCount;
+            while (wall >= 0 && wall < rowEnd) {
+                sink.addWall(new Location(wall - row * columnCount, row));
+                wall = walls.nextSetBit(wall + 1);
+            }
+            sink.endRow(row);
+        }
+        sink.initDefaultLadybug(defaultLadybugLocation, defaultLadybugDirection);
+        for (int i = 0; i < cloverTileIndices.length; i++) {
+            final int index = cloverTileIndices[i];
+            sink.addClover(new Location(index % columnCount, index / columnCount), cloverCounts[i]);
+        }
+        sink.finishTerritory();
+    }
+
+    /**
+     * Collects the content of a territory to create a parsed territory from it.
+     */
+    static final class Recorder implements TerritorySink {
+        private static final int INITIAL_CLOVER_CAPACITY = 16;
+
+        private int columnCount;
+        private int rowCount;
+        private final BitSet walls = new BitSet();
+        private Location defaultLadybugLocation;
+        private Direction defaultLadybugDirection;
+        private int[] cloverTileIndices = new int[INITIAL_CLOVER_CAPACITY];
+        private int[] cloverCounts = new int[INITIAL_CLOVER_CAPACITY];
+        private int cloverTileCount;
+
+        @Override
+        public void initTerritory(final int columnCount, final int rowCount) {
+            if ((long) columnCount * rowCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Territory of " + columnCount + "x" + rowCount + " tiles is too large to be cached.");
+            }
+            this.columnCount = columnCount;
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        public void addWall(final Location location) {
+            walls.set(location.getRow() * columnCount + location.getColumn());
+        }
+
+        @Override
+        public void endRow(final int row) {
+        }
+
+        @Override
+        public void initDefaultLadybug(final Location location, final Direction direction) {
+            this.defaultLadybugLocation = location;
+            this.defaultLadybugDirection = direction;
+        }
+
+        @Override
+        public void addClover(final Location location, final int count) {
+            if (cloverTileCount == cloverCounts.length) {
+                cloverTileIndices = Arrays.copyOf(cloverTileIndices, cloverTileCount * 2);
+                cloverCounts = Arrays.copyOf(cloverCounts, cloverTileCount * 2);
+            }
+            cloverTileIndices[cloverTileCount] = location.getRow() * columnCount + location.getColumn();
+            cloverCounts[cloverTileCount] = count;
+            cloverTileCount++;
+        }
+
+        @Override
+        public void finishTerritory() {
+        }
+
+        ParsedTerritory build() {
+            return new ParsedTerritory(this);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package de.unistuttgart.hamster.facade;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache of parsed territories. Territories are keyed by the
+ * resource name they were loaded from and by the hash of their content, so a resource is
+ * read and parsed only once and resources with identical content share one parsed territory.
+ * <p>
+ * The content hash is only computed when a resource is read, cached resources are not read again.
+ * Resources are assumed not to change while the application runs: a resource changed afterwards
+ * keeps its cached territory until the entry is evicted. Territories larger than the size limit of
+ * the cache are parsed on every load and never cached.
+ */
+final class ParsedTerritoryCache {
+    private static final int DEFAULT_MAXIMUM_ENTRY_COUNT = 64;
+    private static final long DEFAULT_MAXIMUM_SIZE_IN_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Provides the content of a resource which is not cached yet.
+     */
+    @FunctionalInterface
+    interface ResourceReader {
+        byte[] read(String resourceName) throws IOException;
+    }
+
+    private final Map<String, String> contentHashByResourceName = new HashMap<>();
+    private final LinkedHashMap<String, ParsedTerritory> territoriesByContentHash = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maximumEntryCount;
+    private final long maximumSizeInBytes;
+    private long sizeInBytes;
+
+    ParsedTerritoryCache() {
+        this(DEFAULT_MAXIMUM_ENTRY_COUNT, DEFAULT_MAXIMUM_SIZE_IN_BYTES);
+    }
+
+    ParsedTerritoryCache(final int maximumEntryCount, final long maximumSizeInBytes) {
+        this.maximumEntryCount = maximumEntryCount;
+        this.maximumSizeInBytes = maximumSizeInBytes;
+    }
+
+    /**
+     * Returns the parsed territory of the resource, reading and parsing it only if it is not cached.
+     */
+    synchronized ParsedTerritory getOrLoad(final String resourceName, final ResourceReader reader) throws IOException {
+        final String knownContentHash = contentHashByResourceName.get(resourceName);
+        if (knownContentHash != null) {
+            final ParsedTerritory cached = territoriesByContentHash.get(knownContentHash);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final byte[] content = reader.read(resourceName);
+        final String contentHash = hashOf(content);
+        ParsedTerritory territory = territoriesByContentHash.get(contentHash);
+        if (territory != null) {
+            contentHashByResourceName.put(resourceName, contentHash);
+            return territory;
+        }
+        territory = ParsedTerritory.fromInputStream(new ByteArrayInputStream(content));
+        if (territory.estimatedSizeInBytes() <= maximumSizeInBytes) {
+            contentHashByResourceName.put(resourceName, contentHash);
+            territoriesByContentHash.put(contentHash, territory);
+            sizeInBytes += territory.estimatedSizeInBytes();
+            evictLeastRecentlyUsed();
+        }
+        return territory;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        final Iterator<Map.Entry<String, ParsedTerritory>> eldest = territoriesByContentHash.entrySet().iterator();
+        while (territoriesByContentHash.size() > maximumEntryCount || sizeInBytes > maximumSizeInBytes) {
+            final Map.Entry<String, ParsedTerritory> entry = eldest.next();
+            sizeInBytes -= entry.getValue().estimatedSizeInBytes();
+            contentHashByResourceName.values().removeIf(entry.getKey()::equals);
+            eldest.remove();
+        }
+    }
+
+    private static String hashOf(final byte[] content) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            final StringBuilder result = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return result.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.hamster.hamster.Clover;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forwards the content of a territory to a territory builder.
+ * <p>
+ * If the territory being built is known, the clovers of a tile are added with a single change of its
+ * contents: the builder adds the first one, so the tile is checked as usual, and the others are added at
+ * once. Observers of the tile, like the {@link TileContentIndex}, then handle one change per tile instead
+ * of one per clover.
+ */
+final class TerritoryBuilderSink implements TerritorySink {
+    private final TerritoryBuilder territoryBuilder;
+    private final TileContentIndex tileContentIndex;
+
+    TerritoryBuilderSink(final TerritoryBuilder territoryBuilder) {
+        this.territoryBuilder = territoryBuilder;
+        this.tileContentIndex = null;
+    }
+
+    /**
+     * @param territoryBuilder the builder to forward the content to
+     * @param territory the territory the builder builds
+     */
+    TerritoryBuilderSink(final TerritoryBuilder territoryBuilder, final Territory territory) {
+        this.territoryBuilder = territoryBuilder;
+        this.tileContentIndex = TileContentIndex.of(territory);
+    }
+
+    @Override
+    public void initTerritory(final int columnCount, final int rowCount) {
+        territoryBuilder.initTerritory(columnCount, rowCount);
+    }
+
+    @Override
+    public void addWall(final Location location) {
+        territoryBuilder.addWallToTile(location);
+    }
+
+    @Override
+    public void endRow(final int row) {
+    }
+
+    @Override
+    public void initDefaultLadybug(final Location location, final Direction direction) {
+        territoryBuilder.initDefaultLadybug(location.getColumn(), location.getRow(), direction);
+    }
+
+    @Override
+    public void addClover(final Location location, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        territoryBuilder.addMushroomToTile(location);
+        final Tile tile = tileContentIndex == null ? null : tileContentIndex.getSlots(location).getTile();
+        if (tile == null) {
+            for (int i = 1; i < count; i++) {
+                territoryBuilder.addMushroomToTile(location);
+            }
+        } else if (count > 1) {
+            final List<Clover> clovers = new ArrayList<>(count - 1);
+            for (int i = 1; i < count; i++) {
+                clovers.add(new Clover());
+            }
+            tile.getContents().addAll(clovers);
+        }
+    }
+
+    @Override
+    public void finishTerritory() {
+    }
+}
@@ -0,0 +1,70 @@
+package de.unistuttgart.hamster.facade;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Registry of the {@link BulkLoadListener}s of each game. Territories loaded with a
+ * {@link TerritoryLoader} are published as one bulk load, which is announced to these listeners.
+ * <p>
+ * Listeners are only referenced weakly, so a registration keeps neither the listener nor the game
+ * it may refer to alive. Whoever registers a listener has to keep it referenced while it is needed
+ * and should remove it once the game is no longer observed.
+ */
+public final class TerritoryBulkLoads {
+    private static final Map<HamsterGame, List<WeakReference<BulkLoadListener>>> bulkLoadListeners = new WeakHashMap<>();
+
+    private TerritoryBulkLoads() { }
+
+    /**
+     * Registers a listener which is notified about bulk loads into the provided game.
+     * @param game the game to observe
+     * @param listener the listener to notify
+     */
+    public static void addBulkLoadListener(final HamsterGame game, final BulkLoadListener listener) {
+        synchronized (bulkLoadListeners) {
+            bulkLoadListeners.computeIfAbsent(game, key -> new ArrayList<>()).add(new WeakReference<>(listener));
+        }
+    }
+
+    /**
+     * Removes a listener registered with {@link #addBulkLoadListener(HamsterGame, BulkLoadListener)}.
+     * @param game the observed game
+     * @param listener the listener to remove
+     */
+    public static void removeBulkLoadListener(final HamsterGame game, final BulkLoadListener listener) {
+        synchronized (bulkLoadListeners) {
+            final List<WeakReference<BulkLoadListener>> listeners = bulkLoadListeners.get(game);
+            if (listeners != null) {
+                listeners.removeIf(reference -> reference.get() == null || reference.get() == listener);
+                if (listeners.isEmpty()) {
+                    bulkLoadListeners.remove(game);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the listeners of the game which are still referenced
+     */
+    static List<BulkLoadListener> listenersOf(final HamsterGame game) {
+        synchronized (bulkLoadListeners) {
+            final List<WeakReference<BulkLoadListener>> references = bulkLoadListeners.get(game);
+            if (references == null) {
+                return List.of();
+            }
+            final List<BulkLoadListener> listeners = new ArrayList<>(references.size());
+            references.removeIf(reference -> {
+                final BulkLoadListener listener = reference.get();
+                if (listener != null) {
+                    listeners.add(listener);
+                }
+                return listener == null;
+            });
+            return listeners;
+        }
+    }
+}
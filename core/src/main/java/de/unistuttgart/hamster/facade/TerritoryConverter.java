@@ -0,0 +1,69 @@
+package de.unistuttgart.hamster.facade;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts territories from the text based .ter format into the binary territory format,
+ * which stores wall rows run length encoded and clover counts in a packed table.
+ * Binary territories are loaded with {@link TerritoryLoader#loadFromBinaryFile(Path)}.
+ */
+public final class TerritoryConverter {
+
+    private TerritoryConverter() { }
+
+    /**
+     * Converts a .ter file into a binary territory file.
+     * Usage: {@code TerritoryConverter <territory.ter> <territory.kter>}
+     * @throws IllegalArgumentException if not exactly two arguments are given
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: TerritoryConverter <territory.ter> <territory.kter>");
+        }
+        convertToBinary(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    /**
+     * Converts the .ter encoded territory file into a binary territory file.
+     * The source file is read memory mapped, so this works for arbitrarily large territories.
+     * @param territoryFile the .ter file to read
+     * @param binaryFile the file to write the binary territory to
+     */
+    public static void convertToBinary(final Path territoryFile, final Path binaryFile) throws IOException {
+        try (final OutputStream out = new BufferedOutputStream(Files.newOutputStream(binaryFile))) {
+            final BinaryTerritoryWriter writer = new BinaryTerritoryWriter(out);
+            unwrapIOException(() -> TerritoryLoader.initializeFor(writer).loadFromFile(territoryFile));
+        }
+    }
+
+    /**
+     * Converts the .ter encoded territory read from the InputStream into the binary territory format.
+     * @param territoryStream the InputStream providing the territory lines
+     * @param binaryStream the OutputStream to write the binary territory to
+     */
+    public static void convertToBinary(final InputStream territoryStream, final OutputStream binaryStream) throws IOException {
+        final OutputStream out = new BufferedOutputStream(binaryStream);
+        final BinaryTerritoryWriter writer = new BinaryTerritoryWriter(out);
+        unwrapIOException(() -> TerritoryLoader.initializeFor(writer).loadFromInputStream(territoryStream));
+    }
+
+    @FunctionalInterface
+    private interface Load {
+        void run() throws IOException;
+    }
+
+    private static void unwrapIOException(final Load load) throws IOException {
+        try {
+            load.run();
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
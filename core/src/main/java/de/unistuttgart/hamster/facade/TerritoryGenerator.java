@@ -0,0 +1,538 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static de.unistuttgart.iste.sqa.mpw.framework.utils.Preconditions.*;
+
+/**
+ * Generates reproducible territories of up to {@value #MAXIMUM_SIZE} x {@value #MAXIMUM_SIZE} tiles,
+ * either as .ter text or directly into a territory builder. The same seed and settings always
+ * generate the same territory.
+ * <p>
+ * Generation is streaming: tiles are produced row by row and only the current row is kept in memory.
+ * Mazes are generated with Eller's algorithm, which only needs the state of one row of maze cells.
+ * Obstacles of open fields, clovers and clover counts are derived from a hash of the seed and the tile,
+ * so the clover counts, which follow all rows in a territory, are produced by generating the rows again.
+ */
+public final class TerritoryGenerator {
+
+    /**
+     * The maximum number of columns and rows of a generated territory.
+     */
+    public static final int MAXIMUM_SIZE = 10_000;
+
+    /**
+     * The maximum number of spawn points of a generated territory.
+     */
+    public static final int MAXIMUM_SPAWN_POINTS = 1024;
+
+    private static final int CLUSTER_SIZE = 16;
+    private static final long OBSTACLE_SALT = 0x6f627374L;
+    private static final long CLOVER_SALT = 0x636c6f76L;
+    private static final long COUNT_SALT = 0x636f756eL;
+    private static final long CLUSTER_SALT = 0x636c7573L;
+    private static final long SPAWN_SALT = 0x7370776eL;
+
+    /**
+     * The arrangement of the walls.
+     */
+    public enum Layout {
+        /**
+         * A walled field with obstacles spread according to the wall density.
+         */
+        OPEN_FIELD,
+        /**
+         * A perfect maze: every free tile is reachable from every other on exactly one path.
+         */
+        MAZE
+    }
+
+    /**
+     * How clovers are spread over the free tiles. All distributions have the configured average density.
+     */
+    public enum CloverDistribution {
+        UNIFORM,
+        /**
+         * The density grows from none at the western border to twice the average at the eastern border.
+         */
+        GRADIENT,
+        /**
+         * Clovers are concentrated in blocks of 16 x 16 tiles, a quarter of the blocks holds all clovers.
+         */
+        CLUSTERED
+    }
+
+    /**
+     * A location where a ladybug can be placed, facing a direction.
+     */
+    public static final class SpawnPoint {
+        private final Location location;
+        private final Direction direction;
+
+        SpawnPoint(final Location location, final Direction direction) {
+            this.location = location;
+            this.direction = direction;
+        }
+
+        public Location getLocation() {
+            return location;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+    }
+
+    private final Layout layout;
+    private final int columnCount;
+    private final int rowCount;
+    private final long seed;
+    private double wallDensity = 0.1;
+    private double cloverDensity = 0.05;
+    private CloverDistribution cloverDistribution = CloverDistribution.UNIFORM;
+    private int maximumCloversPerTile = 5;
+    private int spawnPointCount = 1;
+    private List<SpawnPoint> spawnPoints = null;
+
+    private TerritoryGenerator(final Layout layout, final int columnCount, final int rowCount, final long seed) {
+        checkNotNull(layout);
+        checkArgument(columnCount >= 3 && columnCount <= MAXIMUM_SIZE, "column count has to be in [3, 10000]");
+        checkArgument(rowCount >= 3 && rowCount <= MAXIMUM_SIZE, "row count has to be in [3, 10000]");
+        this.layout = layout;
+        this.columnCount = columnCount;
+        this.rowCount = rowCount;
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a generator for a maze. Maze cells are the tiles with odd column and row, the tiles between
+     * them are walls or passages. If a dimension is even, the last column or row is a wall.
+     */
+    public static TerritoryGenerator maze(final int columnCount, final int rowCount, final long seed) {
+        return new TerritoryGenerator(Layout.MAZE, columnCount, rowCount, seed);
+    }
+
+    /**
+     * Creates a generator for a walled field with obstacles. Obstacles may enclose free tiles.
+     */
+    public static TerritoryGenerator openField(final int columnCount, final int rowCount, final long seed) {
+        return new TerritoryGenerator(Layout.OPEN_FIELD, columnCount, rowCount, seed);
+    }
+
+    /**
+     * Generates a territory file.
+     * Usage: {@code TerritoryGenerator <maze|field> <columns>x<rows> <seed> <territory.ter>}
+     * @throws IllegalArgumentException if the arguments do not match the usage
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 4 || !args[1].contains("x")) {
+            throw new IllegalArgumentException("Usage: TerritoryGenerator <maze|field> <columns>x<rows> <seed> <territory.ter>");
+        }
+        final int columnCount = Integer.parseInt(args[1].substring(0, args[1].indexOf('x')));
+        final int rowCount = Integer.parseInt(args[1].substring(args[1].indexOf('x') + 1));
+        final long seed = Long.parseLong(args[2]);
+        final TerritoryGenerator generator = "maze".equals(args[0])
+                ? maze(columnCount, rowCount, seed)
+                : openField(columnCount, rowCount, seed);
+        generator.writeToFile(Paths.get(args[3]));
+    }
+
+    /**
+     * @param wallDensity the fraction of the inner tiles of an open field which are obstacles, ignored for mazes
+     */
+    public TerritoryGenerator setWallDensity(final double wallDensity) {
+        checkArgument(wallDensity >= 0 && wallDensity < 1, "wall density has to be in [0, 1)");
+        this.wallDensity = wallDensity;
+        this.spawnPoints = null;
+        return this;
+    }
+
+    /**
+     * @param cloverDensity the average fraction of free tiles holding clovers
+     */
+    public TerritoryGenerator setCloverDensity(final double cloverDensity) {
+        checkArgument(cloverDensity >= 0 && cloverDensity <= 1, "clover density has to be in [0, 1]");
+        this.cloverDensity = cloverDensity;
+        return this;
+    }
+
+    public TerritoryGenerator setCloverDistribution(final CloverDistribution cloverDistribution) {
+        checkNotNull(cloverDistribution);
+        this.cloverDistribution = cloverDistribution;
+        return this;
+    }
+
+    /**
+     * @param maximumCloversPerTile the maximum clover count of a tile, counts are uniform in [1, maximum]
+     */
+    public TerritoryGenerator setMaximumCloversPerTile(final int maximumCloversPerTile) {
+        checkArgument(maximumCloversPerTile >= 1, "maximum clovers per tile has to be positive");
+        this.maximumCloversPerTile = maximumCloversPerTile;
+        return this;
+    }
+
+    /**
+     * @param spawnPointCount the number of spawn points, the first one is the location of the default ladybug
+     */
+    public TerritoryGenerator setSpawnPointCount(final int spawnPointCount) {
+        checkArgument(spawnPointCount >= 1 && spawnPointCount <= MAXIMUM_SPAWN_POINTS,
+                "spawn point count has to be in [1, 1024]");
+        this.spawnPointCount = spawnPointCount;
+        this.spawnPoints = null;
+        return this;
+    }
+
+    /**
+     * Returns the spawn points of the territory. They are free tiles without clovers. As .ter files
+     * only encode the default ladybug, further ladybugs have to be created at the remaining spawn points.
+     * @return the distinct spawn points, the first one is the location of the default ladybug
+     */
+    public List<SpawnPoint> getSpawnPoints() {
+        if (spawnPoints == null) {
+            spawnPoints = Collections.unmodifiableList(chooseSpawnPoints());
+        }
+        return spawnPoints;
+    }
+
+    /**
+     * Writes the territory in the .ter format, replacing the content of the file.
+     * @param file the file to write to
+     */
+    public void writeToFile(final Path file) throws IOException {
+        try (final Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeTo(writer);
+        }
+    }
+
+    /**
+     * Writes the territory in the .ter format.
+     * @param writer the writer to write to, not closed by this method
+     */
+    public void writeTo(final Writer writer) throws IOException {
+        checkNotNull(writer);
+        final Writer out = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        try {
+            out.write(columnCount + "\n" + rowCount + "\n");
+            forEachRow((row, tiles) -> write(() -> {
+                out.write(tiles);
+                out.write('\n');
+            }));
+            forEachRow((row, tiles) -> write(() -> {
+                for (int column = 0; column < columnCount; column++) {
+                    if (tiles[column] == '*') {
+                        out.write(cloverCount(column, row) + "\n");
+                    } else if (tiles[column] != ' ' && tiles[column] != '#') {
+                        out.write("0\n");
+                    }
+                }
+            }));
+            out.write("0\n");
+            out.flush();
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Generates the territory into the builder.
+     * @param territoryBuilder the builder of the territory
+     */
+    public void generateInto(final TerritoryBuilder territoryBuilder) {
+        checkNotNull(territoryBuilder);
+        generateInto(new TerritoryBuilderSink(territoryBuilder));
+    }
+
+    /**
+     * Generates the territory and loads it into the game as one bulk load, like
+     * {@link TerritoryLoader#initializeFor(HamsterGame)}.
+     * @param game the game to load the territory into
+     */
+    public void loadInto(final HamsterGame game) {
+        checkNotNull(game);
+        generateInto(new BatchedTerritoryBuilder(game));
+    }
+
+    void generateInto(final TerritorySink territorySink) {
+        territorySink.initTerritory(columnCount, rowCount);
+        forEachRow((row, tiles) -> {
+            for (int column = 0; column < columnCount; column++) {
+                if (tiles[column] == '#') {
+                    territorySink.addWall(new Location(column, row));
+                }
+            }
+            territorySink.endRow(row);
+        });
+        final SpawnPoint defaultLadybug = getSpawnPoints().get(0);
+        territorySink.initDefaultLadybug(defaultLadybug.getLocation(), defaultLadybug.getDirection());
+        forEachRow((row, tiles) -> {
+            for (int column = 0; column < columnCount; column++) {
+                if (tiles[column] == '*') {
+                    territorySink.addClover(new Location(column, row), cloverCount(column, row));
+                }
+            }
+        });
+        territorySink.finishTerritory();
+    }
+
+    @FunctionalInterface
+    private interface RowConsumer {
+        void accept(int row, char[] tiles);
+    }
+
+    @FunctionalInterface
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    private static void write(final Write write) {
+        try {
+            write.run();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Generates the rows in ascending order as .ter tile codes. Spawn points are kept free of clovers,
+     * the first one holds the default ladybug.
+     */
+    private void forEachRow(final RowConsumer consumer) {
+        final List<SpawnPoint> spawns = new ArrayList<>(getSpawnPoints());
+        spawns.sort(Comparator.comparingLong(spawn -> tileIndex(spawn.getLocation())));
+        final SpawnPoint defaultLadybug = getSpawnPoints().get(0);
+        final WallRows walls = layout == Layout.MAZE ? new MazeRows() : new FieldRows();
+        final char[] tiles = new char[columnCount];
+        int nextSpawn = 0;
+        for (int row = 0; row < rowCount; row++) {
+            walls.fillRow(row, tiles);
+            for (int column = 0; column < columnCount; column++) {
+                if (tiles[column] == ' ' && isClover(column, row)) {
+                    tiles[column] = '*';
+                }
+            }
+            while (nextSpawn < spawns.size() && spawns.get(nextSpawn).getLocation().getRow() == row) {
+                final SpawnPoint spawn = spawns.get(nextSpawn++);
+                tiles[spawn.getLocation().getColumn()] = spawn == defaultLadybug ? tileCodeOf(spawn.getDirection()) : ' ';
+            }
+            consumer.accept(row, tiles);
+        }
+    }
+
+    private List<SpawnPoint> chooseSpawnPoints() {
+        final Random random = new Random(seed ^ SPAWN_SALT);
+        final int candidateCount = layout == Layout.MAZE
+                ? ((columnCount - 1) / 2) * ((rowCount - 1) / 2)
+                : (columnCount - 2) * (rowCount - 2);
+        checkArgument(spawnPointCount <= candidateCount, "too many spawn points for the territory size");
+        final List<SpawnPoint> chosen = new ArrayList<>(spawnPointCount);
+        final Set<Long> chosenTiles = new HashSet<>();
+        int attempts = 0;
+        while (chosen.size() < spawnPointCount) {
+            final Location location;
+            if (layout == Layout.MAZE) {
+                location = new Location(2 * random.nextInt((columnCount - 1) / 2) + 1,
+                        2 * random.nextInt((rowCount - 1) / 2) + 1);
+            } else {
+                location = new Location(random.nextInt(columnCount - 2) + 1, random.nextInt(rowCount - 2) + 1);
+            }
+            final Direction direction = Direction.values()[random.nextInt(Direction.values().length)];
+            final boolean isBlocked = layout == Layout.OPEN_FIELD
+                    && isObstacle(location.getColumn(), location.getRow())
+                    && ++attempts < 64 * MAXIMUM_SPAWN_POINTS;
+            if (!isBlocked && chosenTiles.add(tileIndex(location))) {
+                chosen.add(new SpawnPoint(location, direction));
+            }
+        }
+        return chosen;
+    }
+
+    private long tileIndex(final Location location) {
+        return (long) location.getRow() * columnCount + location.getColumn();
+    }
+
+    private static char tileCodeOf(final Direction direction) {
+        switch (direction) {
+            case NORTH:
+                return '^';
+            case EAST:
+                return '>';
+            case SOUTH:
+                return 'v';
+            default:
+                return '<';
+        }
+    }
+
+    private boolean isObstacle(final int column, final int row) {
+        return unitHash(OBSTACLE_SALT, column, row) < wallDensity;
+    }
+
+    private boolean isClover(final int column, final int row) {
+        return unitHash(CLOVER_SALT, column, row) < cloverDensityAt(column, row);
+    }
+
+    private double cloverDensityAt(final int column, final int row) {
+        switch (cloverDistribution) {
+            case GRADIENT:
+                return Math.min(1, cloverDensity * 2 * (column + 0.5) / columnCount);
+            case CLUSTERED:
+                final boolean isCluster = unitHash(CLUSTER_SALT, column / CLUSTER_SIZE, row / CLUSTER_SIZE) < 0.25;
+                return isCluster ? Math.min(1, cloverDensity * 4) : 0;
+            default:
+                return cloverDensity;
+        }
+    }
+
+    private int cloverCount(final int column, final int row) {
+        return 1 + (int) (unitHash(COUNT_SALT, column, row) * maximumCloversPerTile);
+    }
+
+    /*
+     * A uniformly distributed value in [0, 1) derived from the seed, the salt and the tile.
+     */
+    private double unitHash(final long salt, final int column, final int row) {
+        return (mix(seed ^ mix(salt) ^ mix((long) row * MAXIMUM_SIZE + column)) >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(final long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /*
+     * Fills the walls of the rows, which are requested in ascending order. Non-wall tiles are set to ' '.
+     */
+    private interface WallRows {
+        void fillRow(int row, char[] tiles);
+    }
+
+    private final class FieldRows implements WallRows {
+        @Override
+        public void fillRow(final int row, final char[] tiles) {
+            final boolean isBorderRow = row == 0 || row == rowCount - 1;
+            for (int column = 0; column < columnCount; column++) {
+                final boolean isBorder = isBorderRow || column == 0 || column == columnCount - 1;
+                tiles[column] = isBorder || isObstacle(column, row) ? '#' : ' ';
+            }
+        }
+    }
+
+    /*
+     * Eller's algorithm. The maze cell (c, r) is the tile (2c + 1, 2r + 1). For the current row of cells,
+     * the sets of connected cells are tracked with a union find over the cell columns. Cells which are
+     * connected to the row above carry the set of their upper neighbour, labelled by the column of its
+     * set's root, all others start a new set labelled cellColumnCount + column.
+     */
+    private final class MazeRows implements WallRows {
+        private final int cellColumnCount = (columnCount - 1) / 2;
+        private final int cellRowCount = (rowCount - 1) / 2;
+        private final Random random = new Random(seed);
+        private final int[] sets = new int[cellColumnCount];
+        private final int[] parents = new int[cellColumnCount];
+        private final int[] firstCellOfSet = new int[2 * cellColumnCount];
+        private final int[] lastCellOfSet = new int[cellColumnCount];
+        private final boolean[] hasPassageDown = new boolean[cellColumnCount];
+        private final boolean[] passagesRight = new boolean[cellColumnCount];
+        private final boolean[] passagesDown = new boolean[cellColumnCount];
+        private int cellRow = -1;
+
+        @Override
+        public void fillRow(final int row, final char[] tiles) {
+            Arrays.fill(tiles, '#');
+            if (row % 2 == 1 && (row - 1) / 2 < cellRowCount) {
+                nextCellRow();
+                for (int cell = 0; cell < cellColumnCount; cell++) {
+                    tiles[2 * cell + 1] = ' ';
+                    if (passagesRight[cell]) {
+                        tiles[2 * cell + 2] = ' ';
+                    }
+                }
+            } else if (row > 0 && row % 2 == 0 && (row - 2) / 2 < cellRowCount - 1) {
+                for (int cell = 0; cell < cellColumnCount; cell++) {
+                    if (passagesDown[cell]) {
+                        tiles[2 * cell + 1] = ' ';
+                    }
+                }
+            }
+        }
+
+        private void nextCellRow() {
+            cellRow++;
+            final boolean isLastRow = cellRow == cellRowCount - 1;
+            Arrays.fill(firstCellOfSet, -1);
+            for (int cell = 0; cell < cellColumnCount; cell++) {
+                if (cellRow == 0 || !passagesDown[cell]) {
+                    sets[cell] = cellColumnCount + cell;
+                }
+                final int first = firstCellOfSet[sets[cell]];
+                if (first < 0) {
+                    firstCellOfSet[sets[cell]] = cell;
+                    parents[cell] = cell;
+                } else {
+                    parents[cell] = first;
+                }
+            }
+            for (int cell = 0; cell < cellColumnCount - 1; cell++) {
+                final int left = find(cell);
+                final int right = find(cell + 1);
+                passagesRight[cell] = left != right && (isLastRow || random.nextBoolean());
+                if (passagesRight[cell]) {
+                    parents[right] = left;
+                }
+            }
+            passagesRight[cellColumnCount - 1] = false;
+            Arrays.fill(passagesDown, false);
+            if (isLastRow) {
+                return;
+            }
+            Arrays.fill(hasPassageDown, false);
+            for (int cell = 0; cell < cellColumnCount; cell++) {
+                final int root = find(cell);
+                passagesDown[cell] = random.nextBoolean();
+                hasPassageDown[root] |= passagesDown[cell];
+                lastCellOfSet[root] = cell;
+            }
+            for (int cell = 0; cell < cellColumnCount; cell++) {
+                final int root = find(cell);
+                if (!hasPassageDown[root] && lastCellOfSet[root] == cell) {
+                    passagesDown[cell] = true;
+                }
+                sets[cell] = root;
+            }
+        }
+
+        private int find(final int cell) {
+            int root = cell;
+            while (parents[root] != root) {
+                root = parents[root];
+            }
+            int current = cell;
+            while (parents[current] != root) {
+                final int next = parents[current];
+                parents[current] = root;
+                current = next;
+            }
+            return root;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.hamster.hamster.Clover;
+import de.unistuttgart.hamster.hamster.ReadOnlyHamster;
+import de.unistuttgart.hamster.hamster.Wall;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Size;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import static de.unistuttgart.iste.sqa.mpw.framework.utils.Preconditions.*;
+
+/**
+ * Records how the territory of a game changes with every executed command, so that the territory
+ * of any recorded step can be reconstructed as a {@link TerritorySnapshot}.
+ * <p>
+ * The history is split into segments. Each segment starts with a compact checkpoint of the territory,
+ * followed by compact deltas for up to {@value #CHECKPOINT_INTERVAL} steps. A snapshot is reconstructed
+ * from the closest preceding checkpoint. If the history exceeds its memory cap, the oldest segments are
+ * evicted, so the number of reachable steps shrinks instead of the memory growing without limit. A segment
+ * holds at least {@value #MINIMUM_SEGMENT_LENGTH} steps before it is ended early to evict the ones before,
+ * so the history may exceed its cap by up to one such segment.
+ * <p>
+ * The deltas are taken from the {@link TileContentIndex} and the directions of the ladybugs, steps are
+ * delimited by the entries of the game log. Whenever the tiles of the territory are replaced, e.g. by a
+ * hard reset or by loading a territory, the history restarts with the next step. The history records
+ * until it is closed.
+ */
+public final class TerritoryHistory implements AutoCloseable {
+    /**
+     * The default memory cap in bytes.
+     */
+    public static final long DEFAULT_MEMORY_CAP = 32L * 1024 * 1024;
+
+    static final int CHECKPOINT_INTERVAL = 1024;
+    static final int MINIMUM_SEGMENT_LENGTH = 64;
+
+    private static final int WALL_ADDED = 0;
+    private static final int WALL_REMOVED = 1;
+    private static final int CLOVER_ADDED = 2;
+    private static final int CLOVER_REMOVED = 3;
+    private static final int LADYBUG_MOVED = 4;
+    private static final int LADYBUG_TURNED = 5;
+    private static final int INTS_PER_DELTA = 3;
+
+    private final HamsterGame game;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final List<LongConsumer> stepListeners = new CopyOnWriteArrayList<>();
+    private final Map<ReadOnlyHamster, ChangeListener<Direction>> directionListeners = new HashMap<>();
+    private Territory territory;
+    private LadybugRegistry ladybugRegistry;
+    private TerritorySnapshot.State state;
+    private long latestStep = 0;
+    private long memoryCap = DEFAULT_MEMORY_CAP;
+    private long segmentsSizeInBytes = 0;
+    private boolean isRestartRequired = false;
+    private boolean isClosed = false;
+
+    /*
+     * A checkpoint followed by the deltas of the subsequent steps. The deltas of step firstStep + i + 1
+     * end at stepEnds[i] in deltas.
+     */
+    private static final class Segment {
+        final long firstStep;
+        final TerritorySnapshot.Checkpoint checkpoint;
+        int[] deltas = new int[INTS_PER_DELTA * 64];
+        int deltaSize = 0;
+        int[] stepEnds = new int[64];
+        int stepCount = 0;
+
+        Segment(final long firstStep, final TerritorySnapshot.Checkpoint checkpoint) {
+            this.firstStep = firstStep;
+            this.checkpoint = checkpoint;
+        }
+
+        void addDelta(final int kind, final int key, final int value) {
+            if (deltaSize + INTS_PER_DELTA > deltas.length) {
+                deltas = Arrays.copyOf(deltas, deltas.length * 2);
+            }
+            deltas[deltaSize++] = kind;
+            deltas[deltaSize++] = key;
+            deltas[deltaSize++] = value;
+        }
+
+        void endStep() {
+            if (stepCount == stepEnds.length) {
+                stepEnds = Arrays.copyOf(stepEnds, stepEnds.length * 2);
+            }
+            stepEnds[stepCount++] = deltaSize;
+        }
+
+        long estimatedSizeInBytes() {
+            return checkpoint.estimatedSizeInBytes() + deltas.length * 4L + stepEnds.length * 4L;
+        }
+    }
+
+    private final TileContentListener tileContentListener = new TileContentListener() {
+        @Override
+        public void contentAdded(final Tile tile, final Object content) {
+            recordContentChange(tile, content, true);
+        }
+
+        @Override
+        public void contentRemoved(final Tile tile, final Object content) {
+            recordContentChange(tile, content, false);
+        }
+    };
+
+    private final ListChangeListener<Tile> tilesChangedListener = change -> requireRestart();
+
+    private final Consumer<ReadOnlyHamster> registrationListener = this::observeDirection;
+
+    private final GameLogObserver logObserver;
+
+    /**
+     * Starts recording the history of the game, which has to be closed once it is no longer needed.
+     * @param game the game whose history is recorded
+     */
+    public TerritoryHistory(final HamsterGame game) {
+        checkNotNull(game);
+        this.game = game;
+        attachToTerritory();
+        this.logObserver = new GameLogObserver(game, entry -> endStep());
+    }
+
+    /**
+     * @return the first step which can still be reconstructed
+     */
+    public synchronized long getOldestStep() {
+        return segments.isEmpty() ? latestStep : segments.peekFirst().firstStep;
+    }
+
+    /**
+     * @return the step of the latest executed command, 0 before the first command
+     */
+    public synchronized long getLatestStep() {
+        return latestStep;
+    }
+
+    /**
+     * Reconstructs the territory after the given step.
+     * @param step a step between {@link #getOldestStep()} and {@link #getLatestStep()}
+     * @return the territory after the step
+     * @throws IllegalArgumentException if the step is not recorded
+     */
+    public synchronized TerritorySnapshot getSnapshot(final long step) {
+        checkArgument(step >= getOldestStep() && step <= latestStep, "step " + step + " is not recorded");
+        Segment segment = segments.peekFirst();
+        for (final Segment candidate : segments) {
+            if (candidate.firstStep <= step) {
+                segment = candidate;
+            }
+        }
+        final TerritorySnapshot.State snapshotState = segment.checkpoint.toState();
+        final int stepsToApply = (int) (step - segment.firstStep);
+        final int end = stepsToApply == 0 ? 0 : segment.stepEnds[stepsToApply - 1];
+        for (int i = 0; i < end; i += INTS_PER_DELTA) {
+            apply(snapshotState, segment.deltas[i], segment.deltas[i + 1], segment.deltas[i + 2]);
+        }
+        return new TerritorySnapshot(step, snapshotState);
+    }
+
+    /**
+     * Sets the memory the history may use, evicting the oldest steps if it is exceeded.
+     * @param memoryCap the memory cap in bytes
+     */
+    public synchronized void setMemoryCap(final long memoryCap) {
+        checkArgument(memoryCap > 0, "memory cap has to be positive");
+        this.memoryCap = memoryCap;
+        evictToMemoryCap();
+    }
+
+    /**
+     * @return the estimated memory used by the history in bytes
+     */
+    public synchronized long getEstimatedSizeInBytes() {
+        return segmentsSizeInBytes + (segments.isEmpty() ? 0 : segments.peekLast().estimatedSizeInBytes());
+    }
+
+    /**
+     * Registers a listener which is called with the new latest step after each executed command,
+     * on the thread which executed it.
+     * @param listener the listener to call
+     */
+    public void addStepListener(final LongConsumer listener) {
+        stepListeners.add(listener);
+    }
+
+    public void removeStepListener(final LongConsumer listener) {
+        stepListeners.remove(listener);
+    }
+
+    /**
+     * Stops recording, the steps recorded so far can still be reconstructed. Does nothing if already closed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            TileContentIndex.of(territory).removeTileContentListener(tileContentListener);
+            territory.getInternalTerritory().tilesProperty().removeListener(tilesChangedListener);
+            ladybugRegistry.removeRegistrationListener(registrationListener);
+            directionListeners.forEach((ladybug, listener) -> ladybug.directionProperty().removeListener(listener));
+            directionListeners.clear();
+        }
+        logObserver.detach();
+        stepListeners.clear();
+    }
+
+    private synchronized void attachToTerritory() {
+        this.territory = game.getTerritory();
+        this.ladybugRegistry = LadybugRegistry.of(territory);
+        // registered after the ladybug registry, so that new ladybugs are already numbered
+        TileContentIndex.of(territory).addTileContentListener(tileContentListener);
+        territory.getInternalTerritory().tilesProperty().addListener(tilesChangedListener);
+        ladybugRegistry.addRegistrationListener(registrationListener);
+        territory.getInternalTerritory().getTileContents().stream()
+                .filter(ReadOnlyHamster.class::isInstance)
+                .map(ReadOnlyHamster.class::cast)
+                .forEach(this::observeDirection);
+        restart();
+    }
+
+    /*
+     * Discards the recorded history and starts with a checkpoint of the current territory.
+     */
+    private void restart() {
+        final Size size = territory.getInternalTerritory().stageSizeProperty().get();
+        state = new TerritorySnapshot.State(size.getColumnCount(), size.getRowCount());
+        final TileContentIndex index = TileContentIndex.of(territory);
+        for (final Tile tile : territory.getInternalTerritory().tilesProperty()) {
+            final TileSlots slots = index.getSlots(tile);
+            final int tileIndex = state.indexOf(tile.getLocation());
+            state.setWall(tileIndex, slots.hasWall());
+            if (slots.getCloverCount() > 0) {
+                state.addClovers(tileIndex, slots.getCloverCount());
+            }
+            for (final ReadOnlyHamster ladybug : slots.getOccupants()) {
+                final int number = ladybugRegistry.getNumber(ladybug);
+                if (number >= 0) {
+                    state.setLadybugTile(number, tileIndex);
+                    if (ladybug.getDirection() != null) {
+                        state.setLadybugDirection(number, ladybug.getDirection().ordinal());
+                    }
+                }
+            }
+        }
+        segments.clear();
+        segmentsSizeInBytes = 0;
+        segments.addLast(new Segment(latestStep, state.checkpoint()));
+        isRestartRequired = false;
+    }
+
+    private synchronized void requireRestart() {
+        isRestartRequired = true;
+    }
+
+    private synchronized void recordContentChange(final Tile tile, final Object content, final boolean wasAdded) {
+        if (isRestartRequired) {
+            return;
+        }
+        final int tileIndex = state.indexOf(tile.getLocation());
+        if (content instanceof Wall) {
+            record(wasAdded ? WALL_ADDED : WALL_REMOVED, tileIndex, 0);
+        } else if (content instanceof Clover) {
+            record(wasAdded ? CLOVER_ADDED : CLOVER_REMOVED, tileIndex, 0);
+        } else if (content instanceof ReadOnlyHamster) {
+            final int number = ladybugRegistry.getNumber(content);
+            if (number >= 0) {
+                record(LADYBUG_MOVED, number, wasAdded ? tileIndex : -1);
+                if (wasAdded && ((ReadOnlyHamster) content).getDirection() != null) {
+                    record(LADYBUG_TURNED, number, ((ReadOnlyHamster) content).getDirection().ordinal());
+                }
+            }
+        }
+    }
+
+    private synchronized void observeDirection(final ReadOnlyHamster ladybug) {
+        if (isClosed || directionListeners.containsKey(ladybug)) {
+            return;
+        }
+        final ChangeListener<Direction> listener = (property, oldValue, newValue) -> recordDirectionChange(ladybug, newValue);
+        directionListeners.put(ladybug, listener);
+        ladybug.directionProperty().addListener(listener);
+    }
+
+    private synchronized void recordDirectionChange(final Object ladybug, final Direction direction) {
+        final int number = ladybugRegistry.getNumber(ladybug);
+        if (!isRestartRequired && number >= 0 && direction != null) {
+            record(LADYBUG_TURNED, number, direction.ordinal());
+        }
+    }
+
+    private void record(final int kind, final int key, final int value) {
+        apply(state, kind, key, value);
+        segments.peekLast().addDelta(kind, key, value);
+    }
+
+    private void endStep() {
+        final long step;
+        synchronized (this) {
+            latestStep++;
+            if (isRestartRequired) {
+                restart();
+            } else {
+                segments.peekLast().endStep();
+                if (segments.peekLast().stepCount >= CHECKPOINT_INTERVAL) {
+                    startSegment();
+                }
+                evictToMemoryCap();
+            }
+            step = latestStep;
+        }
+        stepListeners.forEach(listener -> listener.accept(step));
+    }
+
+    private void startSegment() {
+        segmentsSizeInBytes += segments.peekLast().estimatedSizeInBytes();
+        segments.addLast(new Segment(latestStep, state.checkpoint()));
+    }
+
+    private void evictToMemoryCap() {
+        if (getEstimatedSizeInBytes() > memoryCap && segments.size() == 1
+                && segments.peekLast().stepCount >= MINIMUM_SEGMENT_LENGTH) {
+            startSegment();
+        }
+        while (getEstimatedSizeInBytes() > memoryCap && segments.size() > 1) {
+            segmentsSizeInBytes -= segments.removeFirst().estimatedSizeInBytes();
+        }
+    }
+
+    private static void apply(final TerritorySnapshot.State target, final int kind, final int key, final int value) {
+        switch (kind) {
+            case WALL_ADDED:
+                target.setWall(key, true);
+                break;
+            case WALL_REMOVED:
+                target.setWall(key, false);
+                break;
+            case CLOVER_ADDED:
+                target.addClovers(key, 1);
+                break;
+            case CLOVER_REMOVED:
+                target.addClovers(key, -1);
+                break;
+            case LADYBUG_MOVED:
+                target.setLadybugTile(key, value);
+                break;
+            case LADYBUG_TURNED:
+                target.setLadybugDirection(key, value);
+                break;
+            default:
+                throw new IllegalStateException("unknown delta kind " + kind);
+        }
+    }
+}
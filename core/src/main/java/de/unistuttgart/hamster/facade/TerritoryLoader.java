@@ -8,29 +8,69 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
+/**
+ * Loads territories into a game. Territories in the text based .ter format consist of
+ * <ul>
+ *     <li>the column count and the row count, one line each,</li>
+ *     <li>one line of tile codes per row: {@code #} for a wall, {@code *} for a tile with clovers,
+ *     {@code ^ > v <} for the default ladybug facing north, east, south or west and a space for an empty tile,</li>
+ *     <li>one line per {@code *} tile and for the tile of the default ladybug, in row major order,
+ *     holding the number of clovers placed on that tile,</li>
+ *     <li>the initial clover count of the default ladybug, which is ignored as ladybugs carry no clovers.</li>
+ * </ul>
+ * The clover counts are placed as given, a count of 0 leaves the tile empty. Earlier versions placed
+ * exactly one clover on each of these tiles regardless of its count. The bundled territories are
+ * written for the counts, e.g. example01.ter puts the two clovers Example01 picks up on its {@code *}
+ * tile and none below the ladybug.
+ */
 public class TerritoryLoader {
-    private final TerritoryBuilder territoryBuilder;
+    private static final ParsedTerritoryCache parsedTerritoryCache = new ParsedTerritoryCache();
+
+    private final TerritorySink territorySink;
     private Size loadedTerritoryDimensions;
+    private final List<Location> grainLocations = new ArrayList<>();
+    private Optional<Location> defaultHamsterLocation = Optional.empty();
+    private Optional<Direction> defaultHamsterDirection = Optional.empty();
 
-    private TerritoryLoader(final TerritoryBuilder territoryBuilder) {
+    private TerritoryLoader(final TerritorySink territorySink) {
         super();
-        this.territoryBuilder = territoryBuilder;
+        this.territorySink = territorySink;
     }
 
+    /**
+     * Creates a loader for the provided game. The loaded territory is passed to the game as it is read
+     * and announced as one bulk load, see {@link BatchedTerritoryBuilder}.
+     * @param game the game to load the territory into
+     */
     public static TerritoryLoader initializeFor(final HamsterGame game) {
-        final var builder = new TerritoryBuilder(game);
-        return new TerritoryLoader(builder);
+        return new TerritoryLoader(new BatchedTerritoryBuilder(game));
+    }
+
+    static TerritoryLoader initializeFor(final TerritorySink territorySink) {
+        return new TerritoryLoader(territorySink);
     }
 
     /**
      * Loads the territory from the provided resource file.
+     * Resource files are parsed only once, repeated loads replay the cached parsed territory.
      * @param territoryFile the path to a territory encoded in a territory string
      */
     public void loadFromResourceFile(final String territoryFile) throws IOException {
-        final List<String> list = readLinesFromTerritoryResourceFile(territoryFile);
-        interpretLoadedTerritoryLines(list);
+        final ParsedTerritory territory = parsedTerritoryCache.getOrLoad(territoryFile, this::readTerritoryResourceFile);
+        loadFromParsedTerritory(territory);
+    }
+
+    /**
+     * Loads an already parsed territory.
+     * @param territory the territory to load
+     */
+    public void loadFromParsedTerritory(final ParsedTerritory territory) {
+        checkNotNull(territory);
+        territorySink.loadParsedTerritory(territory);
     }
 
     /**
@@ -39,8 +79,74 @@ public class TerritoryLoader {
      *                    lines
      */
     public void loadFromInputStream(final InputStream inputStream) throws IOException {
-        final List<String> list = readLinesFromTerritoryInputStream(inputStream);
-        interpretLoadedTerritoryLines(list);
+        abortOnFailure(() -> {
+            final List<String> list = readLinesFromTerritoryInputStream(inputStream);
+            interpretLoadedTerritoryLines(list);
+        });
+    }
+
+    /**
+     * Loads the territory from the provided file. The file is memory mapped and parsed in a single
+     * pass, each row is handed to the territory sink as soon as it is read. Use this for large
+     * territories, as the file content is neither copied nor converted to strings. The loaded
+     * territory itself still takes the memory of the game it is loaded into.
+     * @param territoryFile the path to a file containing a territory encoded in a territory string
+     */
+    public void loadFromFile(final Path territoryFile) throws IOException {
+        checkNotNull(territoryFile);
+        abortOnFailure(() -> loadFromMappedFile(territoryFile));
+    }
+
+    private void loadFromMappedFile(final Path territoryFile) throws IOException {
+        try (final MappedTerritoryReader reader = new MappedTerritoryReader(territoryFile)) {
+            setSize(reader.readNumberLine(), reader.readNumberLine());
+            for (int row = 0; row < this.loadedTerritoryDimensions.getRowCount(); row++) {
+                reader.readTileRow(row, this.loadedTerritoryDimensions.getColumnCount(), this::interpretTileCode);
+                territorySink.endRow(row);
+            }
+            initDefaultLadybug();
+            for (final Location location : grainLocations) {
+                territorySink.addClover(location, reader.readNumberLine());
+            }
+            readInitialCloverCount(reader.readNumberLine());
+        }
+        territorySink.finishTerritory();
+    }
+
+    /**
+     * Loads the territory from the provided InputStream containing a territory in the binary
+     * territory format, as written by {@link TerritoryConverter}.
+     * @param inputStream the InputStream which is used to get the binary territory
+     */
+    public void loadFromBinaryInputStream(final InputStream inputStream) throws IOException {
+        checkNotNull(inputStream);
+        abortOnFailure(() -> new BinaryTerritoryReader(inputStream).readInto(territorySink));
+    }
+
+    /**
+     * Loads the territory from the provided file containing a territory in the binary
+     * territory format, as written by {@link TerritoryConverter}.
+     * @param territoryFile the path to a file containing a binary territory
+     */
+    public void loadFromBinaryFile(final Path territoryFile) throws IOException {
+        checkNotNull(territoryFile);
+        try (final InputStream in = Files.newInputStream(territoryFile)) {
+            loadFromBinaryInputStream(in);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Load {
+        void run() throws IOException;
+    }
+
+    private void abortOnFailure(final Load load) throws IOException {
+        try {
+            load.run();
+        } catch (final IOException | RuntimeException e) {
+            territorySink.abortTerritory();
+            throw e;
+        }
     }
 
     private void interpretLoadedTerritoryLines(final List<String> list) {
@@ -51,66 +157,88 @@ public class TerritoryLoader {
     }
 
     private void setSizeFromStrings(final String[] lines) {
-        this.loadedTerritoryDimensions = new Size(Integer.parseInt(lines[0]), Integer.parseInt(lines[1]));
-        this.territoryBuilder.initTerritory(this.loadedTerritoryDimensions.getColumnCount(), this.loadedTerritoryDimensions.getRowCount());
+        setSize(Integer.parseInt(lines[0]), Integer.parseInt(lines[1]));
     }
 
-    private void buildTiles(final String[] lines) {
-        final LinkedList<Location> grainLocations = new LinkedList<Location>();
-        Optional<Location> defaultHamsterLocation = Optional.empty();
-        Optional<Direction> defaultHamsterDirection = Optional.empty();
+    /*
+     * Starts a new text territory, so the parse state of previous loads is reset here.
+     */
+    private void setSize(final int columnCount, final int rowCount) {
+        this.grainLocations.clear();
+        this.defaultHamsterLocation = Optional.empty();
+        this.defaultHamsterDirection = Optional.empty();
+        this.loadedTerritoryDimensions = new Size(columnCount, rowCount);
+        this.territorySink.initTerritory(this.loadedTerritoryDimensions.getColumnCount(), this.loadedTerritoryDimensions.getRowCount());
+    }
 
+    private void buildTiles(final String[] lines) {
         for (int row = 0; row < this.loadedTerritoryDimensions.getRowCount(); row++) {
             for (int column = 0; column < this.loadedTerritoryDimensions.getColumnCount(); column++) {
-                final Location currentLocation = new Location(column, row);
-                final char tileCode = lines[row].charAt(column);
-                switch (tileCode) {
-                    case ' ':
-                        break;
-                    case '#':
-                        createWallAt(currentLocation);
-                        break;
-                    case '*':
-                        grainLocations.add(currentLocation);
-                        break;
-                    case '^':
-                        grainLocations.add(currentLocation);
-                        defaultHamsterLocation = Optional.of(currentLocation);
-                        defaultHamsterDirection = Optional.of(Direction.NORTH);
-                        break;
-                    case '>':
-                        grainLocations.add(currentLocation);
-                        defaultHamsterLocation = Optional.of(currentLocation);
-                        defaultHamsterDirection = Optional.of(Direction.EAST);
-                        break;
-                    case 'v':
-                        grainLocations.add(currentLocation);
-                        defaultHamsterLocation = Optional.of(currentLocation);
-                        defaultHamsterDirection = Optional.of(Direction.SOUTH);
-                        break;
-                    case '<':
-                        grainLocations.add(currentLocation);
-                        defaultHamsterLocation = Optional.of(currentLocation);
-                        defaultHamsterDirection = Optional.of(Direction.WEST);
-                        break;
-                    default:
-                        throw new RuntimeException("Territory error.");
-                }
+                interpretTileCode(lines[row].charAt(column), column, row);
             }
+            territorySink.endRow(row);
         }
-        final int initialGrainCount = Integer.parseInt(lines[this.loadedTerritoryDimensions.getRowCount() + grainLocations.size()]);
-        territoryBuilder.initDefaultLadybug(defaultHamsterLocation.get().getColumn(), defaultHamsterLocation.get().getRow(), defaultHamsterDirection.get());
-        placeGrain(lines, grainLocations);
+        readInitialCloverCount(Integer.parseInt(lines[this.loadedTerritoryDimensions.getRowCount() + grainLocations.size()]));
+        initDefaultLadybug();
+        placeGrain(lines);
+        territorySink.finishTerritory();
     }
 
-    private List<String> readLinesFromTerritoryResourceFile(final String territoryFileName) throws IOException {
+    private void interpretTileCode(final char tileCode, final int column, final int row) {
+        switch (tileCode) {
+            case ' ':
+                break;
+            case '#':
+                createWallAt(new Location(column, row));
+                break;
+            case '*':
+                grainLocations.add(new Location(column, row));
+                break;
+            case '^':
+                setDefaultHamster(new Location(column, row), Direction.NORTH);
+                break;
+            case '>':
+                setDefaultHamster(new Location(column, row), Direction.EAST);
+                break;
+            case 'v':
+                setDefaultHamster(new Location(column, row), Direction.SOUTH);
+                break;
+            case '<':
+                setDefaultHamster(new Location(column, row), Direction.WEST);
+                break;
+            default:
+                throw new RuntimeException("Territory error.");
+        }
+    }
+
+    private void setDefaultHamster(final Location location, final Direction direction) {
+        grainLocations.add(location);
+        defaultHamsterLocation = Optional.of(location);
+        defaultHamsterDirection = Optional.of(direction);
+    }
+
+    /*
+     * The last line of a territory holds the initial clover count of the default hamster. Ladybugs
+     * carry no clovers, so the count is only validated.
+     */
+    private void readInitialCloverCount(final int initialCloverCount) {
+        if (initialCloverCount < 0) {
+            throw new RuntimeException("Territory error.");
+        }
+    }
+
+    private void initDefaultLadybug() {
+        territorySink.initDefaultLadybug(defaultHamsterLocation.get(), defaultHamsterDirection.get());
+    }
+
+    private byte[] readTerritoryResourceFile(final String territoryFileName) throws IOException {
         final InputStream in = getClass().getClassLoader().getResourceAsStream(territoryFileName);
         if (in == null) {
             throw new IOException("Unable to load the territory from the filename: " + territoryFileName);
         }
-        final List<String> result = readLinesFromTerritoryInputStream(in);
-        in.close();
-        return result;
+        try (in) {
+            return in.readAllBytes();
+        }
     }
 
     private List<String> readLinesFromTerritoryInputStream(final InputStream inputStream) throws IOException {
@@ -134,15 +262,15 @@ public class TerritoryLoader {
         }
     }
 
-    private void placeGrain(final String[] lines, final LinkedList<Location> grainLocations) {
+    private void placeGrain(final String[] lines) {
         for (int i = 0; i < grainLocations.size(); i++) {
             final Location location = grainLocations.get(i);
             final int count = Integer.parseInt(lines[this.loadedTerritoryDimensions.getRowCount() + i]);
-            territoryBuilder.addMushroomToTile(location);
+            territorySink.addClover(location, count);
         }
     }
 
     private void createWallAt(final Location currentLocation) {
-        this.territoryBuilder.addWallToTile(currentLocation);
+        this.territorySink.addWall(currentLocation);
     }
 }
@@ -0,0 +1,39 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+
+/**
+ * Receives the content of a territory while it is read. Sources call the methods in this order:
+ * initTerritory once, then for each row in ascending order addWall for its walls in ascending
+ * column order followed by endRow, then initDefaultLadybug once, addClover for each tile holding
+ * clovers in row major order and finally finishTerritory once. If the territory cannot be read
+ * completely, abortTerritory is called instead of finishTerritory.
+ */
+interface TerritorySink {
+
+    void initTerritory(int columnCount, int rowCount);
+
+    void addWall(Location location);
+
+    void endRow(int row);
+
+    void initDefaultLadybug(Location location, Direction direction);
+
+    void addClover(Location location, int count);
+
+    void finishTerritory();
+
+    /**
+     * Called if reading failed, possibly before initTerritory was called.
+     */
+    default void abortTerritory() {
+    }
+
+    /**
+     * Receives a complete, already parsed territory.
+     */
+    default void loadParsedTerritory(final ParsedTerritory territory) {
+        territory.replayInto(this);
+    }
+}
@@ -0,0 +1,226 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Size;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The contents of a territory after a step of a game, as reconstructed by a {@link TerritoryHistory}:
+ * the walls, the clover count of each tile and the location and direction of each ladybug.
+ * Ladybugs are identified by their {@link LadybugRegistry} number. A snapshot is immutable.
+ */
+public final class TerritorySnapshot {
+    private final long step;
+    private final State state;
+
+    TerritorySnapshot(final long step, final State state) {
+        this.step = step;
+        this.state = state;
+    }
+
+    /**
+     * @return the number of commands executed before this snapshot was taken
+     */
+    public long getStep() {
+        return step;
+    }
+
+    public Size getSize() {
+        return new Size(state.columnCount, state.rowCount);
+    }
+
+    public boolean hasWall(final Location location) {
+        return isInside(location) && state.hasWall(state.indexOf(location));
+    }
+
+    public int getCloverCount(final Location location) {
+        return isInside(location) ? state.clovers.getOrDefault(state.indexOf(location), 0) : 0;
+    }
+
+    /**
+     * @return the number of ladybugs known at this snapshot, numbered from 0
+     */
+    public int getLadybugCount() {
+        return state.ladybugCount;
+    }
+
+    /**
+     * @param number the number of a ladybug
+     * @return the location of the ladybug, or an empty optional if it is not in the territory
+     */
+    public Optional<Location> getLadybugLocation(final int number) {
+        if (number < 0 || number >= state.ladybugCount || state.ladybugTiles[number] < 0) {
+            return Optional.empty();
+        }
+        final int index = state.ladybugTiles[number];
+        return Optional.of(new Location(index % state.columnCount, index / state.columnCount));
+    }
+
+    /**
+     * @param number the number of a ladybug
+     * @return the direction of the ladybug, or an empty optional if it is unknown
+     */
+    public Optional<Direction> getLadybugDirection(final int number) {
+        if (number < 0 || number >= state.ladybugCount || state.ladybugDirections[number] < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Direction.values()[state.ladybugDirections[number]]);
+    }
+
+    private boolean isInside(final Location location) {
+        return location.getColumn() >= 0 && location.getColumn() < state.columnCount
+                && location.getRow() >= 0 && location.getRow() < state.rowCount;
+    }
+
+    /*
+     * The mutable territory state a history maintains and reconstructs snapshots from.
+     * Tiles are addressed by their row major index, ladybugs by their number. The wall bitmap is
+     * shared with the checkpoints taken of the state and only copied when a wall changes afterwards.
+     */
+    static final class State {
+        final int columnCount;
+        final int rowCount;
+        private BitSet walls;
+        private boolean isWallsShared;
+        final Map<Integer, Integer> clovers;
+        int[] ladybugTiles;
+        byte[] ladybugDirections;
+        int ladybugCount;
+
+        State(final int columnCount, final int rowCount) {
+            this(columnCount, rowCount, new BitSet(), false, new HashMap<>(), new int[4], new byte[4], 0);
+        }
+
+        private State(final int columnCount, final int rowCount, final BitSet walls, final boolean isWallsShared,
+                      final Map<Integer, Integer> clovers, final int[] ladybugTiles, final byte[] ladybugDirections,
+                      final int ladybugCount) {
+            this.columnCount = columnCount;
+            this.rowCount = rowCount;
+            this.walls = walls;
+            this.isWallsShared = isWallsShared;
+            this.clovers = clovers;
+            this.ladybugTiles = ladybugTiles;
+            this.ladybugDirections = ladybugDirections;
+            this.ladybugCount = ladybugCount;
+        }
+
+        int indexOf(final Location location) {
+            return location.getRow() * columnCount + location.getColumn();
+        }
+
+        boolean hasWall(final int tileIndex) {
+            return walls.get(tileIndex);
+        }
+
+        void setWall(final int tileIndex, final boolean hasWall) {
+            if (walls.get(tileIndex) == hasWall) {
+                return;
+            }
+            if (isWallsShared) {
+                walls = (BitSet) walls.clone();
+                isWallsShared = false;
+            }
+            walls.set(tileIndex, hasWall);
+        }
+
+        /*
+         * Takes a compact checkpoint of this state. Its cost depends on the number of tiles with clovers
+         * and the number of ladybugs, not on the size of the territory, as the wall bitmap is shared.
+         */
+        Checkpoint checkpoint() {
+            final long wallsSizeInBytes = isWallsShared ? 0 : walls.size() / 8;
+            isWallsShared = true;
+            final long[] packedClovers = new long[clovers.size()];
+            int i = 0;
+            for (final Map.Entry<Integer, Integer> entry : clovers.entrySet()) {
+                packedClovers[i++] = (long) entry.getKey() << 32 | entry.getValue();
+            }
+            return new Checkpoint(columnCount, rowCount, walls, wallsSizeInBytes, packedClovers,
+                    Arrays.copyOf(ladybugTiles, ladybugCount), Arrays.copyOf(ladybugDirections, ladybugCount));
+        }
+
+        void addClovers(final int tileIndex, final int delta) {
+            final int count = clovers.getOrDefault(tileIndex, 0) + delta;
+            if (count > 0) {
+                clovers.put(tileIndex, count);
+            } else {
+                clovers.remove(tileIndex);
+            }
+        }
+
+        void setLadybugTile(final int number, final int tileIndex) {
+            ensureLadybug(number);
+            ladybugTiles[number] = tileIndex;
+        }
+
+        void setLadybugDirection(final int number, final int ordinal) {
+            ensureLadybug(number);
+            ladybugDirections[number] = (byte) ordinal;
+        }
+
+        private void ensureLadybug(final int number) {
+            if (number >= ladybugTiles.length) {
+                final int capacity = Math.max(number + 1, ladybugTiles.length * 2);
+                ladybugTiles = Arrays.copyOf(ladybugTiles, capacity);
+                ladybugDirections = Arrays.copyOf(ladybugDirections, capacity);
+            }
+            while (ladybugCount <= number) {
+                ladybugTiles[ladybugCount] = -1;
+                ladybugDirections[ladybugCount] = -1;
+                ladybugCount++;
+            }
+        }
+    }
+
+    /*
+     * An immutable checkpoint of a state. The clover counts are packed as tile index and count into
+     * one long per tile with clovers, the wall bitmap is shared with the state and later checkpoints
+     * until a wall changes.
+     */
+    static final class Checkpoint {
+        private final int columnCount;
+        private final int rowCount;
+        private final BitSet walls;
+        private final long wallsSizeInBytes;
+        private final long[] packedClovers;
+        private final int[] ladybugTiles;
+        private final byte[] ladybugDirections;
+
+        private Checkpoint(final int columnCount, final int rowCount, final BitSet walls, final long wallsSizeInBytes,
+                           final long[] packedClovers, final int[] ladybugTiles, final byte[] ladybugDirections) {
+            this.columnCount = columnCount;
+            this.rowCount = rowCount;
+            this.walls = walls;
+            this.wallsSizeInBytes = wallsSizeInBytes;
+            this.packedClovers = packedClovers;
+            this.ladybugTiles = ladybugTiles;
+            this.ladybugDirections = ladybugDirections;
+        }
+
+        /*
+         * Creates a new state equal to the state this checkpoint was taken of.
+         */
+        State toState() {
+            final Map<Integer, Integer> clovers = new HashMap<>(Math.max(16, packedClovers.length * 2));
+            for (final long packedClover : packedClovers) {
+                clovers.put((int) (packedClover >>> 32), (int) packedClover);
+            }
+            final int capacity = Math.max(4, ladybugTiles.length);
+            return new State(columnCount, rowCount, walls, true, clovers, Arrays.copyOf(ladybugTiles, capacity),
+                    Arrays.copyOf(ladybugDirections, capacity), ladybugTiles.length);
+        }
+
+        /*
+         * A wall bitmap shared with an earlier checkpoint is only counted by the earliest one.
+         */
+        long estimatedSizeInBytes() {
+            return 64L + wallsSizeInBytes + packedClovers.length * 8L + ladybugTiles.length * 5L;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.hamster.hamster.ReadOnlyHamster;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
+import javafx.collections.ListChangeListener;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Typed index of the contents of each tile of a territory: whether the tile holds a wall, how many
+ * clovers it holds and which ladybugs occupy it. The index is updated on every change of the tile
+ * contents, so all queries are constant time field reads instead of scans of the tile contents.
+ * <p>
+ * The index serves the presenter, the history and the registries of this package. The queries of the
+ * generated facade, e.g. of {@link Territory} and {@link Ladybug}, are generated as well and still scan
+ * the tile contents of the model.
+ * <p>
+ * The index observes the tile list of the territory and the contents of each tile. JavaFX notifies the
+ * listeners of a property in the order they were added, so an observer of the same properties which
+ * reads the index during a change, like the presenter, has to obtain the index before it registers its
+ * own listeners. Otherwise it reads the state from before the change.
+ */
+public final class TileContentIndex {
+    /*
+     * The index is only referenced weakly, as it refers to the tiles and through them to the territory.
+     * It is kept alive by its listener on the tile list of the territory.
+     */
+    private static final Map<Territory, WeakReference<TileContentIndex>> instances = new WeakHashMap<>();
+
+    private final Map<Tile, TileSlots> slotsByTile = new IdentityHashMap<>();
+    private final Map<Location, TileSlots> slotsByLocation = new HashMap<>();
+    private final List<TileContentListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final ListChangeListener<Tile> tilesChangedListener = change -> {
+        while (change.next()) {
+            if (change.wasRemoved()) {
+                change.getRemoved().forEach(this::removeTile);
+            }
+            if (change.wasAdded()) {
+                change.getAddedSubList().forEach(this::addTile);
+            }
+        }
+    };
+
+    private TileContentIndex(final Territory territory) {
+        territory.getInternalTerritory().tilesProperty().addListener(tilesChangedListener);
+        territory.getInternalTerritory().tilesProperty().forEach(this::addTile);
+    }
+
+    /**
+     * Returns the content index of the provided territory, creating it on first use.
+     * @param territory the territory whose tiles are indexed
+     * @return the content index of the territory
+     */
+    public static TileContentIndex of(final Territory territory) {
+        synchronized (instances) {
+            final WeakReference<TileContentIndex> reference = instances.get(territory);
+            TileContentIndex index = reference == null ? null : reference.get();
+            if (index == null) {
+                index = new TileContentIndex(territory);
+                instances.put(territory, new WeakReference<>(index));
+            }
+            return index;
+        }
+    }
+
+    /**
+     * @param tile a tile of the indexed territory
+     * @return the content slots of the tile, empty slots if the tile is not part of the territory
+     */
+    TileSlots getSlots(final Tile tile) {
+        return slotsByTile.getOrDefault(tile, TileSlots.EMPTY);
+    }
+
+    /**
+     * @param location a location of the indexed territory
+     * @return the content slots of the tile at the location, empty slots if there is no such tile
+     */
+    TileSlots getSlots(final Location location) {
+        return slotsByLocation.getOrDefault(location, TileSlots.EMPTY);
+    }
+
+    /**
+     * Registers a listener which is notified about all content changes of the tiles of the territory.
+     * @param listener the listener to notify
+     */
+    public void addTileContentListener(final TileContentListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeTileContentListener(final TileContentListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean hasWall(final Tile tile) {
+        return getSlots(tile).hasWall();
+    }
+
+    public int getCloverCount(final Tile tile) {
+        return getSlots(tile).getCloverCount();
+    }
+
+    /**
+     * @param tile a tile of the indexed territory
+     * @return the ladybugs on the tile in the order they entered it
+     */
+    public List<ReadOnlyHamster> getOccupants(final Tile tile) {
+        return getSlots(tile).getOccupants();
+    }
+
+    /**
+     * @param tile a tile of the indexed territory
+     * @return the ladybug which entered the tile first, if any
+     */
+    public Optional<ReadOnlyHamster> getFirstOccupant(final Tile tile) {
+        return getSlots(tile).getFirstOccupant();
+    }
+
+    private void addTile(final Tile tile) {
+        final TileSlots slots = new TileSlots(this, tile);
+        tile.getContents().forEach(slots::contentAdded);
+        slots.observe(tile.contentsProperty());
+        slotsByTile.put(tile, slots);
+        slotsByLocation.put(tile.getLocation(), slots);
+    }
+
+    private void removeTile(final Tile tile) {
+        final TileSlots slots = slotsByTile.remove(tile);
+        if (slots != null) {
+            slots.stopObserving(tile.contentsProperty());
+            slotsByLocation.remove(tile.getLocation(), slots);
+        }
+    }
+
+    void contentAdded(final Tile tile, final Object content) {
+        for (final TileContentListener listener : listeners) {
+            listener.contentAdded(tile, content);
+        }
+    }
+
+    void contentRemoved(final Tile tile, final Object content) {
+        for (final TileContentListener listener : listeners) {
+            listener.contentRemoved(tile, content);
+        }
+    }
+}
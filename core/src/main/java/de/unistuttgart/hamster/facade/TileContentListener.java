@@ -0,0 +1,14 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
+
+/**
+ * Is notified by a {@link TileContentIndex} about every content added to or removed from a tile
+ * of its territory, after the typed slots of the tile have been updated.
+ */
+public interface TileContentListener {
+
+    void contentAdded(Tile tile, Object content);
+
+    void contentRemoved(Tile tile, Object content);
+}
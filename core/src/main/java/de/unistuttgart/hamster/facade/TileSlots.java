@@ -0,0 +1,103 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.hamster.hamster.Clover;
+import de.unistuttgart.hamster.hamster.ReadOnlyHamster;
+import de.unistuttgart.hamster.hamster.Wall;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The typed content slots of a single tile, kept in sync with the tile contents by the
+ * {@link TileContentIndex}.
+ */
+final class TileSlots {
+    static final TileSlots EMPTY = new TileSlots(null, null);
+
+    private final TileContentIndex index;
+    private final Tile tile;
+    private int wallCount;
+    private int cloverCount;
+    private final List<ReadOnlyHamster> occupants = new ArrayList<>(1);
+    private final List<ReadOnlyHamster> unmodifiableOccupants = Collections.unmodifiableList(occupants);
+
+    private final ListChangeListener<Object> contentsChangedListener = change -> {
+        while (change.next()) {
+            if (change.wasRemoved()) {
+                change.getRemoved().forEach(this::contentRemoved);
+            }
+            if (change.wasAdded()) {
+                change.getAddedSubList().forEach(this::contentAdded);
+            }
+        }
+    };
+
+    TileSlots(final TileContentIndex index, final Tile tile) {
+        this.index = index;
+        this.tile = tile;
+    }
+
+    /**
+     * @return the tile of the slots, null for the empty slots
+     */
+    Tile getTile() {
+        return tile;
+    }
+
+    boolean hasWall() {
+        return wallCount > 0;
+    }
+
+    int getCloverCount() {
+        return cloverCount;
+    }
+
+    /**
+     * @return the ladybugs on the tile in the order they entered it
+     */
+    List<ReadOnlyHamster> getOccupants() {
+        return unmodifiableOccupants;
+    }
+
+    /**
+     * @return the ladybug which entered the tile first, if any
+     */
+    Optional<ReadOnlyHamster> getFirstOccupant() {
+        return occupants.isEmpty() ? Optional.empty() : Optional.of(occupants.get(0));
+    }
+
+    void observe(final ObservableList<?> contents) {
+        contents.addListener(contentsChangedListener);
+    }
+
+    void stopObserving(final ObservableList<?> contents) {
+        contents.removeListener(contentsChangedListener);
+    }
+
+    void contentAdded(final Object content) {
+        if (content instanceof Clover) {
+            cloverCount++;
+        } else if (content instanceof Wall) {
+            wallCount++;
+        } else if (content instanceof ReadOnlyHamster) {
+            occupants.add((ReadOnlyHamster) content);
+        }
+        index.contentAdded(tile, content);
+    }
+
+    void contentRemoved(final Object content) {
+        if (content instanceof Clover) {
+            cloverCount--;
+        } else if (content instanceof Wall) {
+            wallCount--;
+        } else if (content instanceof ReadOnlyHamster) {
+            occupants.remove(content);
+        }
+        index.contentRemoved(tile, content);
+    }
+}
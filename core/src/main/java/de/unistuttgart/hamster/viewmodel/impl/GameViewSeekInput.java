@@ -0,0 +1,34 @@
+package de.unistuttgart.hamster.viewmodel.impl;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Input of a game view which can show the territory of any recorded step of the game.
+ * While an earlier step is shown, the view does not follow the running game. Seeking to the
+ * latest step returns to the live view.
+ */
+public interface GameViewSeekInput {
+
+    /**
+     * Shows the territory after the given step.
+     * @param step a step between {@link #getOldestStep()} and {@link #getLatestStep()}, clamped to this range
+     */
+    void seekTo(long step);
+
+    /**
+     * @return the oldest step which can still be shown
+     */
+    long getOldestStep();
+
+    /**
+     * @return the latest executed step
+     */
+    long getLatestStep();
+
+    /**
+     * Registers a listener which is called with the new latest step after each executed command,
+     * on the thread which executed it.
+     * @param listener the listener to call
+     */
+    void addStepListener(LongConsumer listener);
+}
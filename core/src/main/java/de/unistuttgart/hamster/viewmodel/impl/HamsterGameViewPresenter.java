@@ -3,6 +3,7 @@ package de.unistuttgart.hamster.viewmodel.impl;
 import de.unistuttgart.hamster.facade.*;
 import de.unistuttgart.hamster.hamster.*;
 import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
 import de.unistuttgart.iste.sqa.mpw.framework.mpw.LogEntry;
 import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Size;
 import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
@@ -13,22 +14,98 @@ import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.impl.GameViewPresenterBa
 import javafx.beans.property.ReadOnlyListProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
 
 import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.LongConsumer;
 
-public class HamsterGameViewPresenter extends GameViewPresenterBase {
+public class HamsterGameViewPresenter extends GameViewPresenterBase implements GameViewSeekInput {
+	private final HamsterGame game;
 	private final Territory territory;
+	private final TileContentIndex tileContentIndex;
+	private final LadybugRegistry ladybugRegistry;
+	private final GameMetrics metrics;
+
+	/*
+	 * The history is only recorded from the first use of the seek input on, e.g. of the step scrubber
+	 * of the game window, so presenters which never seek do not pay for recording it.
+	 */
+	private final Object historyLock = new Object();
+	private TerritoryHistory territoryHistory = null;
+	private boolean isClosed = false;
 
-	private final Map<ReadOnlyHamster, Color> hamsterToColorMap = new HashMap<>();
 	private final Map<ReadOnlyHamster, ChangeListener<Direction>> hamsterDirectionChangeListeners = new HashMap<>();
+	private final Map<ViewModelCell, CellLayers> cellLayers = new HashMap<>();
+	private final Map<Tile, CellLayers> cellLayersByTile = new HashMap<>();
+
+	/*
+	 * While a territory is bulk loaded or an earlier step is shown, changed cells are only collected
+	 * and configured once the load is committed or the view returns to the latest step.
+	 */
+	private final Map<ViewModelCell, Tile> cellsChangedDuringBulkLoad = new LinkedHashMap<>();
+	private boolean isBulkLoading = false;
+	private boolean isShowingEarlierStep = false;
+
+	private final BulkLoadListener bulkLoadListener = new BulkLoadListener() {
+		@Override
+		public void bulkLoadStarted() {
+			runLocked(() -> isBulkLoading = true);
+		}
+
+		@Override
+		public void bulkLoadCommitted() {
+			runLocked(() -> {
+				isBulkLoading = false;
+				if (!isShowingEarlierStep) {
+					configureDeferredCells();
+				}
+			});
+		}
+	};
+
+	/*
+	 * Registered before bind(), so that the state of replaced tiles is dropped before the base presenter
+	 * sets the new tiles of the cells.
+	 */
+	private final ListChangeListener<Tile> tilesChangeListener = change -> {
+		while (change.next()) {
+			if (change.wasRemoved()) {
+				runLocked(this::resetCells);
+				return;
+			}
+		}
+	};
 
 	public HamsterGameViewPresenter(final HamsterGame game) {
 		super(game);
+		this.game = game;
 		this.territory = game.getTerritory();
+		// created before bind(), so that both observe tile content changes before this presenter does
+		this.tileContentIndex = TileContentIndex.of(territory);
+		this.ladybugRegistry = LadybugRegistry.of(territory);
+		this.metrics = new GameMetrics(game);
+		TerritoryBulkLoads.addBulkLoadListener(game, bulkLoadListener);
+		territory.getInternalTerritory().tilesProperty().addListener(tilesChangeListener);
+	}
+
+	/**
+	 * Closes the game and detaches this presenter from it.
+	 */
+	@Override
+	public void close() {
+		super.close();
+		TerritoryBulkLoads.removeBulkLoadListener(game, bulkLoadListener);
+		territory.getInternalTerritory().tilesProperty().removeListener(tilesChangeListener);
+		runLocked(this::removeHamsterDirectionListeners);
+		synchronized (historyLock) {
+			isClosed = true;
+			if (territoryHistory != null) {
+				territoryHistory.close();
+			}
+		}
+		metrics.close();
 	}
 
 	@Override
@@ -43,109 +120,237 @@ public class HamsterGameViewPresenter extends GameViewPresenterBase {
 
 	@Override
 	protected Color getColorForLogEntry(final LogEntry entry) {
-		if (hamsterToColorMap.containsKey(entry.getActor())) {
-			return hamsterToColorMap.get(entry.getActor());
-		}
-		return super.getColorForLogEntry(entry);
+		final int ladybugNumber = ladybugRegistry.getNumber(entry.getActor());
+		return ladybugNumber < 0 ? super.getColorForLogEntry(entry) : HamsterColors.getColorForNthHamster(ladybugNumber);
+	}
+
+	/**
+	 * @return the metrics of the presented game
+	 */
+	public GameMetrics getMetrics() {
+		return metrics;
 	}
 
 	@Override
 	protected void onSetTileNodeAtForCell(final ViewModelCell cell, final Tile tile) {
-		configureWallImageView(cell, tile);
-		configureGrainImageView(cell, tile);
+		final long start = System.nanoTime();
+		if (isBulkLoading || isShowingEarlierStep) {
+			cellsChangedDuringBulkLoad.put(cell, tile);
+		} else {
+			configureCell(cell, tile);
+		}
+		metrics.getCellUpdates().record(System.nanoTime() - start);
+	}
 
-		final Optional<ReadOnlyHamster> hamsterOptional = findHamsterOnTile(tile);
-		hamsterOptional.ifPresent(readOnlyHamster -> configureHamsterImageView(cell, readOnlyHamster));
+	@Override
+	public void seekTo(final long step) {
+		final TerritoryHistory territoryHistory = getTerritoryHistory();
+		final long latestStep = territoryHistory.getLatestStep();
+		final long clampedStep = Math.max(territoryHistory.getOldestStep(), Math.min(step, latestStep));
+		// the snapshot is reconstructed outside of the lock, only the changed layers are updated within
+		final TerritorySnapshot snapshot = clampedStep < latestStep ? territoryHistory.getSnapshot(clampedStep) : null;
+		runLocked(() -> {
+			if (snapshot != null) {
+				isShowingEarlierStep = true;
+				showSnapshot(snapshot);
+			} else if (isShowingEarlierStep) {
+				isShowingEarlierStep = false;
+				cellLayers.forEach((cell, layers) -> cellsChangedDuringBulkLoad.putIfAbsent(cell, layers.tile));
+				if (!isBulkLoading) {
+					configureDeferredCells();
+				}
+			}
+		});
 	}
 
-	private Optional<ReadOnlyHamster> findHamsterOnTile(final Tile tile) {
-		return tile.getContents().stream()
-				.filter(ReadOnlyHamster.class::isInstance)
-				.map(ReadOnlyHamster.class::cast).findFirst();
+	@Override
+	public long getOldestStep() {
+		return getTerritoryHistory().getOldestStep();
 	}
 
-	private void configureWallImageView(final ViewModelCell cell, final Tile tile) {
-		final var layer = new ViewModelCellLayer();
-		layer.setImageName("Wall");
-		refreshWallLayer(layer, tile);
-		cell.getLayers().add(layer);
+	@Override
+	public long getLatestStep() {
+		return getTerritoryHistory().getLatestStep();
 	}
 
-	private void refreshWallLayer(final ViewModelCellLayer layer, final Tile tile) {
-		layer.setVisible(tile.getContents().stream().anyMatch(Wall.class::isInstance));
+	@Override
+	public void addStepListener(final LongConsumer listener) {
+		getTerritoryHistory().addStepListener(listener);
 	}
 
-	private void configureGrainImageView(final ViewModelCell cell, final Tile tile) {
-		final var layer = new ViewModelCellLayer();
-		refreshGrainLayer(layer, tile);
-		cell.getLayers().add(layer);
+	/*
+	 * Starts recording the history on first use. A history started after this presenter was closed
+	 * is closed right away, so it answers queries but does not observe the game.
+	 */
+	private TerritoryHistory getTerritoryHistory() {
+		synchronized (historyLock) {
+			if (territoryHistory == null) {
+				territoryHistory = new TerritoryHistory(game);
+				if (isClosed) {
+					territoryHistory.close();
+				}
+			}
+			return territoryHistory;
+		}
 	}
 
-	private void refreshGrainLayer(final ViewModelCellLayer layer, final Tile tile) {
-		final int cloverCount = getCloverOfTile(tile).size();
-		layer.setVisible(cloverCount > 0);
+	/*
+	 * The tiles of the territory were replaced, e.g. by a hard reset or by loading a new territory.
+	 * Drops the layers and listeners of the old tiles, the cells are configured again once the base
+	 * presenter sets their new tiles.
+	 */
+	private void resetCells() {
+		cellLayers.forEach((cell, layers) -> layers.detachFrom(cell));
+		cellLayers.clear();
+		cellLayersByTile.clear();
+		cellsChangedDuringBulkLoad.clear();
+		removeHamsterDirectionListeners();
+	}
 
-		if (cloverCount <= 12) {
-			layer.setImageName(cloverCount + "Corn");
-		} else {
-			layer.setImageName("12PlusCorn");
+	private void removeHamsterDirectionListeners() {
+		hamsterDirectionChangeListeners.forEach((hamster, listener) -> hamster.directionProperty().removeListener(listener));
+		hamsterDirectionChangeListeners.clear();
+	}
+
+	private void configureDeferredCells() {
+		cellsChangedDuringBulkLoad.forEach(this::configureCell);
+		cellsChangedDuringBulkLoad.clear();
+	}
+
+	/*
+	 * Shows the snapshot in the layers of all cells. The cached state of the layers is set to the
+	 * shown state, so that returning to the latest step only touches the layers which differ.
+	 */
+	private void showSnapshot(final TerritorySnapshot snapshot) {
+		final Map<Location, Integer> ladybugByLocation = new HashMap<>();
+		for (int number = 0; number < snapshot.getLadybugCount(); number++) {
+			final int ladybugNumber = number;
+			snapshot.getLadybugLocation(number).ifPresent(location -> ladybugByLocation.putIfAbsent(location, ladybugNumber));
 		}
+		cellLayers.forEach((cell, layers) -> {
+			if (layers.tile == null) {
+				return;
+			}
+			final Location location = layers.tile.getLocation();
+			showWall(layers, snapshot.hasWall(location));
+			showClovers(layers, snapshot.getCloverCount(location));
+			final Integer ladybugNumber = ladybugByLocation.get(location);
+			layers.hamster = null;
+			layers.hamsterLayer.setVisible(ladybugNumber != null);
+			if (ladybugNumber != null) {
+				layers.hamsterLayer.setImageName("Hamster" + HamsterColors.getColorForNthHamster(ladybugNumber).name());
+				snapshot.getLadybugDirection(ladybugNumber)
+						.ifPresent(direction -> layers.hamsterLayer.setRotation(getRotationForDirection(direction)));
+			}
+		});
 	}
 
-	private List<Clover> getCloverOfTile(final Tile tile) {
-		return tile.getContents().stream()
-				.filter(Clover.class::isInstance)
-				.map(Clover.class::cast)
-				.collect(Collectors.toList());
+	private void configureCell(final ViewModelCell cell, final Tile tile) {
+		final CellLayers layers = cellLayers.computeIfAbsent(cell, key -> createCellLayers());
+		layers.attachTo(cell);
+		if (layers.tile != tile) {
+			cellLayersByTile.remove(layers.tile);
+			cellLayersByTile.put(tile, layers);
+			layers.tile = tile;
+		}
+
+		showWall(layers, tileContentIndex.hasWall(tile));
+		showClovers(layers, tileContentIndex.getCloverCount(tile));
+		refreshHamsterLayer(layers, tileContentIndex.getFirstOccupant(tile).orElse(null));
 	}
 
-	private void configureHamsterImageView(final ViewModelCell cell, final ReadOnlyHamster hamster) {
-		updateColorMap();
+	private CellLayers createCellLayers() {
+		final CellLayers layers = new CellLayers();
+		layers.wallLayer.setImageName("Wall");
+		layers.wallLayer.setVisible(false);
+		layers.grainLayer.setVisible(false);
+		layers.hamsterLayer.setVisible(false);
+		return layers;
+	}
 
-		final var layer = new ViewModelCellLayer();
-		layer.setImageName("Hamster" + hamsterToColorMap.get(hamster).name());
+	private void showWall(final CellLayers layers, final boolean hasWall) {
+		if (hasWall != layers.hasWall) {
+			layers.hasWall = hasWall;
+			layers.wallLayer.setVisible(hasWall);
+		}
+	}
 
-		addHamsterDirectionListener(layer, hamster);
+	private void showClovers(final CellLayers layers, final int cloverCount) {
+		if (cloverCount == layers.cloverCount) {
+			return;
+		}
+		layers.cloverCount = cloverCount;
+		layers.grainLayer.setVisible(cloverCount > 0);
 
-		refreshHamsterLayer(layer, hamster);
-		cell.getLayers().add(layer);
+		if (cloverCount <= 12) {
+			layers.grainLayer.setImageName(cloverCount + "Corn");
+		} else {
+			layers.grainLayer.setImageName("12PlusCorn");
+		}
 	}
 
-	/*
-	 * Adds a listener for the change of the direction, to also update the layers if the hamster turns left.
-	 * Note: Since onSetTileNodeAtForCell() is called every time the contents of a tile changes, a Hamster might
-	 * be configured multiple times. Avoid, that multiple direction listeners are attached.
-	 */
-	private void addHamsterDirectionListener(final ViewModelCellLayer layer, final ReadOnlyHamster hamster) {
-		if (hamsterDirectionChangeListeners.containsKey(hamster)) {
-			final ChangeListener<Direction> oldChangeListener = hamsterDirectionChangeListeners.remove(hamster);
-			hamster.directionProperty().removeListener(oldChangeListener);
+	private void refreshHamsterLayer(final CellLayers layers, final ReadOnlyHamster hamster) {
+		if (hamster != layers.hamster) {
+			layers.hamster = hamster;
+			if (hamster != null) {
+				layers.hamsterLayer.setImageName("Hamster" + HamsterColors.getColorForNthHamster(ladybugRegistry.getNumber(hamster)).name());
+				addHamsterDirectionListener(hamster);
+			}
+		}
+		layers.hamsterLayer.setVisible(hamster != null && hamster.getCurrentTile() != null);
+		if (hamster != null) {
+			refreshHamsterRotation(layers, hamster);
 		}
-		final ChangeListener<Direction> hamsterChangeListener = (property, oldValue, newValue) -> {
-			runLocked(() -> {
-				refreshHamsterLayer(layer, hamster);
-			});
-		};
-		hamster.directionProperty().addListener(hamsterChangeListener);
-		hamsterDirectionChangeListeners.put(hamster, hamsterChangeListener);
 	}
 
-	private void refreshHamsterLayer(final ViewModelCellLayer layer, final ReadOnlyHamster hamster) {
-		layer.setVisible(hamster.getCurrentTile() != null);
+	private void refreshHamsterRotation(final CellLayers layers, final ReadOnlyHamster hamster) {
 		if (hamster.getDirection() != null) {
-			layer.setRotation(getRotationForDirection(hamster.getDirection()));
+			layers.hamsterLayer.setRotation(getRotationForDirection(hamster.getDirection()));
 		}
 	}
 
-	private void updateColorMap() {
-		territory.getInternalTerritory().getTileContents().stream()
-				.filter(ReadOnlyHamster.class::isInstance)
-				.map(ReadOnlyHamster.class::cast)
-				.filter(hamster -> !hamsterToColorMap.containsKey(hamster))
-				.forEach(hamster -> {
-					final var color = HamsterColors.getColorForNthHamster(hamsterToColorMap.size());
-					hamsterToColorMap.put(hamster, color);
+	/*
+	 * Adds a listener for the change of the direction, to also update the layers if the hamster turns left.
+	 * The listener is attached once per hamster and refreshes the layer of the cell the hamster currently shows on.
+	 */
+	private void addHamsterDirectionListener(final ReadOnlyHamster hamster) {
+		hamsterDirectionChangeListeners.computeIfAbsent(hamster, key -> {
+			final ChangeListener<Direction> hamsterChangeListener = (property, oldValue, newValue) -> {
+				runLocked(() -> {
+					final CellLayers layers = cellLayersByTile.get(hamster.getCurrentTile());
+					if (layers != null && layers.hamster == hamster && !isShowingEarlierStep) {
+						refreshHamsterRotation(layers, hamster);
+					}
 				});
+			};
+			hamster.directionProperty().addListener(hamsterChangeListener);
+			return hamsterChangeListener;
+		});
+	}
+
+	/*
+	 * The fixed set of layers of a cell, created once per cell. Remembers the state shown by each layer,
+	 * so that a content change only touches the layers whose state actually changed.
+	 */
+	private static final class CellLayers {
+		final ViewModelCellLayer wallLayer = new ViewModelCellLayer();
+		final ViewModelCellLayer grainLayer = new ViewModelCellLayer();
+		final ViewModelCellLayer hamsterLayer = new ViewModelCellLayer();
+
+		Tile tile = null;
+		boolean hasWall = false;
+		int cloverCount = 0;
+		ReadOnlyHamster hamster = null;
+
+		void attachTo(final ViewModelCell cell) {
+			if (!cell.getLayers().contains(wallLayer)) {
+				cell.getLayers().addAll(wallLayer, grainLayer, hamsterLayer);
+			}
+		}
+
+		void detachFrom(final ViewModelCell cell) {
+			cell.getLayers().removeAll(wallLayer, grainLayer, hamsterLayer);
+		}
 	}
 
 }
@@ -0,0 +1,139 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTerritoryTest {
+
+    @Test
+    void readsWhatWasWritten() throws IOException {
+        final RecordingTerritorySink written = new RecordingTerritorySink();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTerritory(new BinaryTerritoryWriter(out));
+        writeTerritory(written);
+        final RecordingTerritorySink read = new RecordingTerritorySink();
+
+        new BinaryTerritoryReader(new ByteArrayInputStream(out.toByteArray())).readInto(read);
+
+        assertEquals(written.getCalls(), read.getCalls());
+    }
+
+    @Test
+    void encodesRunsInsteadOfTiles() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        writeTerritory(new BinaryTerritoryWriter(out));
+
+        assertTrue(out.size() < 64, "a 300x4 territory with long wall runs should take a few bytes, not " + out.size());
+    }
+
+    @Test
+    void rejectsMissingMagic() {
+        final byte[] territory = writtenTerritory();
+        territory[0] = 'X';
+
+        assertThrows(IOException.class, () -> read(territory));
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() {
+        final byte[] territory = writtenTerritory();
+        territory[BinaryTerritoryFormat.MAGIC.length] = BinaryTerritoryFormat.VERSION + 1;
+
+        assertThrows(IOException.class, () -> read(territory));
+    }
+
+    @Test
+    void rejectsTruncatedTerritory() {
+        final byte[] territory = writtenTerritory();
+        final byte[] truncated = new byte[territory.length - 2];
+        System.arraycopy(territory, 0, truncated, 0, truncated.length);
+
+        assertThrows(IOException.class, () -> read(truncated));
+    }
+
+    @Test
+    void rejectsRowLongerThanTerritory() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BinaryTerritoryFormat.MAGIC);
+        out.write(BinaryTerritoryFormat.VERSION);
+        BinaryTerritoryFormat.writeVarInt(out, 3);
+        BinaryTerritoryFormat.writeVarInt(out, 1);
+        BinaryTerritoryFormat.writeVarInt(out, 4);
+
+        assertThrows(IOException.class, () -> read(out.toByteArray()));
+    }
+
+    @Test
+    void rejectsCloverOutsideOfTerritory() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BinaryTerritoryFormat.MAGIC);
+        out.write(BinaryTerritoryFormat.VERSION);
+        BinaryTerritoryFormat.writeVarInt(out, 3);
+        BinaryTerritoryFormat.writeVarInt(out, 1);
+        BinaryTerritoryFormat.writeVarInt(out, 3);
+        BinaryTerritoryFormat.writeVarInt(out, 0);
+        BinaryTerritoryFormat.writeVarInt(out, 0);
+        out.write(Direction.NORTH.ordinal());
+        BinaryTerritoryFormat.writeVarInt(out, 1);
+        BinaryTerritoryFormat.writeVarLong(out, 3);
+        BinaryTerritoryFormat.writeVarInt(out, 0);
+
+        assertThrows(IOException.class, () -> read(out.toByteArray()));
+    }
+
+    @Test
+    void writerRejectsCloversOutOfOrder() {
+        final BinaryTerritoryWriter writer = new BinaryTerritoryWriter(new ByteArrayOutputStream());
+        writer.initTerritory(3, 1);
+        writer.endRow(0);
+        writer.initDefaultLadybug(new Location(0, 0), Direction.NORTH);
+        writer.addClover(new Location(2, 0), 1);
+
+        assertThrows(IllegalArgumentException.class, () -> writer.addClover(new Location(1, 0), 1));
+    }
+
+    /*
+     * Wall runs and clover gaps longer than 127 tiles take more than one byte each.
+     */
+    private static void writeTerritory(final TerritorySink sink) {
+        final int columnCount = 300;
+        final int rowCount = 4;
+        sink.initTerritory(columnCount, rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                if (row == 0 || row == rowCount - 1 || column == 0 || column == columnCount - 1
+                        || (row == 1 && column >= 10 && column < 200)) {
+                    sink.addWall(new Location(column, row));
+                }
+            }
+            sink.endRow(row);
+        }
+        sink.initDefaultLadybug(new Location(1, 2), Direction.WEST);
+        sink.addClover(new Location(1, 1), 3);
+        sink.addClover(new Location(250, 1), 1);
+        sink.addClover(new Location(2, 2), 200);
+        sink.finishTerritory();
+    }
+
+    private static byte[] writtenTerritory() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTerritory(new BinaryTerritoryWriter(out));
+        return out.toByteArray();
+    }
+
+    private static List<String> read(final byte[] territory) throws IOException {
+        final RecordingTerritorySink sink = new RecordingTerritorySink();
+        new BinaryTerritoryReader(new ByteArrayInputStream(territory)).readInto(sink);
+        return new ArrayList<>(sink.getCalls());
+    }
+}
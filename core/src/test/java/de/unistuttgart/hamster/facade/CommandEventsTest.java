@@ -0,0 +1,60 @@
+package de.unistuttgart.hamster.facade;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandEventsTest {
+    private static final String TERRITORY = "5\n3\n#####\n#> *#\n#####\n0\n2\n0\n";
+    private static final double MAXIMUM_SPEED = 10.0;
+
+    @Test
+    void emitsEventsOfCommandsWhileRecording(@TempDir final Path directory) throws IOException {
+        final HamsterGame game = new HamsterGame();
+        game.hardReset();
+        TerritoryLoader.initializeFor(game).loadFromInputStream(new ByteArrayInputStream(TERRITORY.getBytes(StandardCharsets.UTF_8)));
+        game.setSpeed(MAXIMUM_SPEED);
+        game.startGame();
+        final Ladybug ladybug = game.getTerritory().getDefaultHamster();
+        CommandEvents.enableFor(game);
+        ladybug.turnLeft();
+        final Path file = directory.resolve("commands.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(LadybugCommandEvent.NAME);
+            recording.start();
+            ladybug.turnLeft();
+            ladybug.turnLeft();
+            ladybug.turnLeft();
+            ladybug.write("move");
+            ladybug.move();
+            ladybug.move();
+            ladybug.pickClover();
+            recording.stop();
+            ladybug.turnLeft();
+            recording.dump(file);
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(LadybugCommandEvent.NAME))
+                .collect(Collectors.toList());
+        assertEquals(List.of("turnLeft", "turnLeft", "turnLeft", "write", "move", "move", "pickClover"),
+                events.stream().map(event -> event.getString("command")).collect(Collectors.toList()));
+        final RecordedEvent move = events.get(4);
+        assertEquals(2, move.getInt("column"));
+        assertEquals(1, move.getInt("row"));
+        assertEquals(2, move.getInt("batchSize"));
+        assertEquals(-1, events.get(3).getInt("column"));
+    }
+}
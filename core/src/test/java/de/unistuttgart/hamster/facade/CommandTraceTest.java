@@ -0,0 +1,155 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.LogEntry;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandTraceTest {
+    private static final String TERRITORY = "5\n3\n#####\n#> *#\n#####\n0\n2\n0\n";
+    private static final String OTHER_TERRITORY = "4\n4\n####\n#v*#\n#  #\n####\n0\n3\n0\n";
+    private static final double MAXIMUM_SPEED = 10.0;
+
+    private HamsterGame game;
+    private Ladybug ladybug;
+
+    @BeforeEach
+    void startGame() throws IOException {
+        game = new HamsterGame();
+        load(game, TERRITORY);
+        game.setSpeed(MAXIMUM_SPEED);
+        game.startGame();
+        ladybug = game.getTerritory().getDefaultHamster();
+    }
+
+    @Test
+    void replaysCommandsAndWrittenText() throws IOException {
+        final byte[] trace = record(() -> {
+            ladybug.move();
+            ladybug.write("move");
+            ladybug.move();
+            ladybug.pickClover();
+            ladybug.write("Turn Left");
+            ladybug.turnLeft();
+            ladybug.putClover();
+        });
+
+        final HamsterGame replayed = replay(trace);
+
+        assertEquals(messages(game), messages(replayed));
+        assertSameLadybug(ladybug, replayed.getTerritory().getDefaultHamster());
+        assertEquals(cloverCount(game, new Location(3, 1)), cloverCount(replayed, new Location(3, 1)));
+    }
+
+    @Test
+    void replaysSpawnedLadybugsAcrossReloads() throws IOException {
+        final byte[] trace = record(() -> {
+            new Ladybug(game.getTerritory(), new Location(2, 1), Direction.WEST).write("first");
+            reload(OTHER_TERRITORY);
+            final Ladybug second = new Ladybug(game.getTerritory(), new Location(1, 2), Direction.EAST);
+            second.move();
+            ladybug.turnLeft();
+            ladybug.move();
+            ladybug.pickClover();
+        });
+
+        final HamsterGame replayed = replay(trace);
+
+        assertEquals(messages(game), messages(replayed));
+        assertSameLadybug(ladybug, replayed.getTerritory().getDefaultHamster());
+        assertEquals(2, cloverCount(replayed, new Location(2, 1)));
+        assertEquals(1, TileContentIndex.of(replayed.getTerritory()).getOccupants(tileAt(replayed, new Location(2, 2))).size());
+    }
+
+    @Test
+    void replaysUndos() throws IOException {
+        final byte[] trace = record(() -> {
+            ladybug.move();
+            ladybug.move();
+            ladybug.pickClover();
+            game.getCommandStack().undo();
+            game.getCommandStack().undo();
+            ladybug.turnLeft();
+        });
+
+        final HamsterGame replayed = replay(trace);
+
+        assertEquals(2, messages(replayed).size());
+        assertEquals(messages(game), messages(replayed));
+        assertSameLadybug(ladybug, replayed.getTerritory().getDefaultHamster());
+        assertEquals(2, cloverCount(replayed, new Location(3, 1)));
+    }
+
+    @Test
+    void rejectsOtherVersions() {
+        final byte[] trace = new byte[CommandTraceFormat.MAGIC.length + 1];
+        System.arraycopy(CommandTraceFormat.MAGIC, 0, trace, 0, CommandTraceFormat.MAGIC.length);
+        trace[CommandTraceFormat.MAGIC.length] = CommandTraceFormat.VERSION - 1;
+
+        assertThrows(IOException.class, () -> new CommandTraceReplayer(new HamsterGame()).replay(new ByteArrayInputStream(trace)));
+    }
+
+    private byte[] record(final Runnable program) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final CommandTraceRecorder recorder = new CommandTraceRecorder(game, out);
+        try {
+            program.run();
+        } finally {
+            recorder.close();
+        }
+        return out.toByteArray();
+    }
+
+    private static HamsterGame replay(final byte[] trace) throws IOException {
+        final HamsterGame replayed = new HamsterGame();
+        new CommandTraceReplayer(replayed).replay(new ByteArrayInputStream(trace));
+        return replayed;
+    }
+
+    private void reload(final String territory) {
+        try {
+            load(game, territory);
+        } catch (final IOException e) {
+            throw new AssertionError(e);
+        }
+        game.startGame();
+    }
+
+    private static void load(final HamsterGame game, final String territory) throws IOException {
+        game.hardReset();
+        TerritoryLoader.initializeFor(game).loadFromInputStream(new ByteArrayInputStream(territory.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> messages(final HamsterGame game) {
+        return game.getGameLog().logEntriesProperty().stream().map(LogEntry::getMessage).collect(Collectors.toList());
+    }
+
+    private static int cloverCount(final HamsterGame game, final Location location) {
+        return TileContentIndex.of(game.getTerritory()).getCloverCount(tileAt(game, location));
+    }
+
+    private static Tile tileAt(final HamsterGame game, final Location location) {
+        return game.getTerritory().getInternalTerritory().tilesProperty().stream()
+                .filter(tile -> tile.getLocation().getColumn() == location.getColumn()
+                        && tile.getLocation().getRow() == location.getRow())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void assertSameLadybug(final Ladybug expected, final Ladybug actual) {
+        assertEquals(expected.getLocation().getColumn(), actual.getLocation().getColumn());
+        assertEquals(expected.getLocation().getRow(), actual.getLocation().getRow());
+        assertEquals(expected.getDirection(), actual.getDirection());
+    }
+}
@@ -0,0 +1,110 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Color;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonLinesLogSinkTest {
+    private static final String TERRITORY = "5\n3\n#####\n#> *#\n#####\n0\n2\n0\n";
+    private static final double MAXIMUM_SPEED = 10.0;
+
+    private HamsterGame game;
+    private Ladybug ladybug;
+
+    @BeforeEach
+    void startGame() throws IOException {
+        game = new HamsterGame();
+        game.hardReset();
+        TerritoryLoader.initializeFor(game).loadFromInputStream(new ByteArrayInputStream(TERRITORY.getBytes(StandardCharsets.UTF_8)));
+        game.setSpeed(MAXIMUM_SPEED);
+        game.startGame();
+        ladybug = game.getTerritory().getDefaultHamster();
+    }
+
+    @Test
+    void writesOneObjectPerEntry() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final JsonLinesLogSink sink = new JsonLinesLogSink(game, out, JsonLinesLogSink.DEFAULT_QUEUE_CAPACITY,
+                number -> number == 0 ? Color.GREEN : Color.RED);
+
+        ladybug.move();
+        ladybug.write("say \"hi\"\\\n\tbye\u0001");
+        sink.close();
+
+        final List<String> lines = withoutTimestamps(out);
+        assertEquals(List.of(
+                "{\"actor\":0,\"color\":\"GREEN\",\"message\":\"" + messageOf(0) + "\",\"step\":1}",
+                "{\"actor\":0,\"color\":\"GREEN\",\"message\":\"say \\\"hi\\\"\\\\\\n\\tbye\\u0001\",\"step\":2}"),
+                lines);
+        assertEquals(0, sink.getDroppedEntryCount());
+    }
+
+    @Test
+    void stopsWritingWhenClosed() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final JsonLinesLogSink sink = new JsonLinesLogSink(game, out, JsonLinesLogSink.DEFAULT_QUEUE_CAPACITY, number -> Color.RED);
+        ladybug.move();
+
+        sink.close();
+        ladybug.move();
+        sink.close();
+
+        assertEquals(1, withoutTimestamps(out).size());
+    }
+
+    @Test
+    void dropsEntriesWhileTheQueueIsFull() throws IOException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final OutputStream blockingOut = new OutputStream() {
+            @Override
+            public void write(final int b) {
+                written.write(b);
+            }
+
+            @Override
+            public void flush() {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        final JsonLinesLogSink sink = new JsonLinesLogSink(game, blockingOut, 1, number -> Color.RED);
+
+        for (int i = 0; i < 10; i++) {
+            ladybug.write("entry " + i);
+        }
+        release.countDown();
+        sink.close();
+
+        final long dropped = sink.getDroppedEntryCount();
+        assertTrue(dropped > 0);
+        assertEquals(10, withoutTimestamps(written).size() + dropped);
+    }
+
+    private String messageOf(final int index) {
+        return game.getGameLog().logEntriesProperty().get(index).getMessage();
+    }
+
+    private static List<String> withoutTimestamps(final ByteArrayOutputStream out) {
+        final String text = out.toString(StandardCharsets.UTF_8);
+        return Arrays.stream(text.split("\n"))
+                .filter(line -> !line.isEmpty())
+                .map(line -> line.replaceAll(",\"timestamp\":\\d+", ""))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,86 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.hamster.hamster.ReadOnlyHamster;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LadybugRegistryTest {
+    private static final String TERRITORY = "5\n3\n#####\n#>  #\n#####\n0\n0\n";
+
+    private HamsterGame game;
+    private LadybugRegistry registry;
+
+    @BeforeEach
+    void loadTerritory() throws IOException {
+        game = new HamsterGame();
+        load();
+        registry = LadybugRegistry.of(game.getTerritory());
+    }
+
+    @Test
+    void numbersLadybugsInTheOrderTheyEnter() {
+        final Ladybug first = new Ladybug(game.getTerritory(), new Location(2, 1), Direction.EAST);
+        final Ladybug second = new Ladybug(game.getTerritory(), new Location(3, 1), Direction.WEST);
+
+        assertEquals(0, registry.getNumber(game.getTerritory().getDefaultHamster()));
+        assertEquals(1, registry.getNumber(first));
+        assertEquals(2, registry.getNumber(second));
+        assertEquals(3, registry.size());
+        assertEquals(-1, registry.getNumber(new Object()));
+        assertEquals(-1, registry.getNumber(null));
+    }
+
+    @Test
+    void keepsNumbersWhileLadybugsMove() {
+        final Ladybug ladybug = new Ladybug(game.getTerritory(), new Location(2, 1), Direction.EAST);
+        game.startGame();
+
+        ladybug.move();
+        ladybug.turnLeft();
+
+        assertEquals(1, registry.getNumber(ladybug));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void reusesNumbersOfRemovedLadybugsLowestFirst() throws IOException {
+        final Ladybug removed = new Ladybug(game.getTerritory(), new Location(2, 1), Direction.EAST);
+
+        load();
+        final Ladybug first = new Ladybug(game.getTerritory(), new Location(2, 1), Direction.EAST);
+        final Ladybug second = new Ladybug(game.getTerritory(), new Location(3, 1), Direction.EAST);
+
+        assertEquals(-1, registry.getNumber(removed));
+        assertEquals(0, registry.getNumber(game.getTerritory().getDefaultHamster()));
+        assertEquals(1, registry.getNumber(first));
+        assertEquals(2, registry.getNumber(second));
+        assertEquals(3, registry.size());
+    }
+
+    @Test
+    void notifiesListenersOncePerNewLadybug() {
+        final List<ReadOnlyHamster> registered = new CopyOnWriteArrayList<>();
+        registry.addRegistrationListener(registered::add);
+
+        final Ladybug ladybug = new Ladybug(game.getTerritory(), new Location(2, 1), Direction.EAST);
+        game.startGame();
+        ladybug.move();
+
+        assertEquals(List.of(ladybug), registered);
+    }
+
+    private void load() throws IOException {
+        game.hardReset();
+        TerritoryLoader.initializeFor(game).loadFromInputStream(new ByteArrayInputStream(TERRITORY.getBytes(StandardCharsets.UTF_8)));
+    }
+}
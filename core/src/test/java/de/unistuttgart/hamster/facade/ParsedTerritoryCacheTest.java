@@ -0,0 +1,101 @@
+package de.unistuttgart.hamster.facade;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParsedTerritoryCacheTest {
+    private static final String SMALL_TERRITORY = "3\n3\n###\n#>#\n###\n0\n0\n";
+    private static final String OTHER_TERRITORY = "4\n3\n####\n#>*#\n####\n0\n1\n0\n";
+
+    private final Map<String, String> resources = new HashMap<>();
+    private final Map<String, Integer> readCounts = new HashMap<>();
+
+    @Test
+    void readsResourceOnlyOnce() throws IOException {
+        final ParsedTerritoryCache cache = new ParsedTerritoryCache();
+        resources.put("a.ter", SMALL_TERRITORY);
+
+        final ParsedTerritory first = cache.getOrLoad("a.ter", this::read);
+        final ParsedTerritory second = cache.getOrLoad("a.ter", this::read);
+
+        assertSame(first, second);
+        assertEquals(1, readCount("a.ter"));
+        assertEquals(3, first.getColumnCount());
+        assertEquals(3, first.getRowCount());
+    }
+
+    @Test
+    void sharesTerritoryOfResourcesWithIdenticalContent() throws IOException {
+        final ParsedTerritoryCache cache = new ParsedTerritoryCache();
+        resources.put("a.ter", SMALL_TERRITORY);
+        resources.put("b.ter", SMALL_TERRITORY);
+
+        final ParsedTerritory first = cache.getOrLoad("a.ter", this::read);
+        final ParsedTerritory second = cache.getOrLoad("b.ter", this::read);
+        cache.getOrLoad("b.ter", this::read);
+
+        assertSame(first, second);
+        assertEquals(1, readCount("b.ter"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedTerritory() throws IOException {
+        final ParsedTerritoryCache cache = new ParsedTerritoryCache(1, Long.MAX_VALUE);
+        resources.put("a.ter", SMALL_TERRITORY);
+        resources.put("b.ter", OTHER_TERRITORY);
+
+        cache.getOrLoad("a.ter", this::read);
+        cache.getOrLoad("b.ter", this::read);
+        cache.getOrLoad("b.ter", this::read);
+        cache.getOrLoad("a.ter", this::read);
+
+        assertEquals(2, readCount("a.ter"));
+        assertEquals(1, readCount("b.ter"));
+    }
+
+    @Test
+    void doesNotCacheTerritoriesLargerThanTheCache() throws IOException {
+        final ParsedTerritoryCache cache = new ParsedTerritoryCache(64, 1);
+        resources.put("a.ter", SMALL_TERRITORY);
+
+        final ParsedTerritory first = cache.getOrLoad("a.ter", this::read);
+        final ParsedTerritory second = cache.getOrLoad("a.ter", this::read);
+
+        assertNotSame(first, second);
+        assertEquals(2, readCount("a.ter"));
+    }
+
+    @Test
+    void replaysParsedTerritoryLikeParsing() throws IOException {
+        final ParsedTerritoryCache cache = new ParsedTerritoryCache();
+        resources.put("b.ter", OTHER_TERRITORY);
+        final RecordingTerritorySink parsed = new RecordingTerritorySink();
+        TerritoryLoader.initializeFor(parsed).loadFromInputStream(
+                new ByteArrayInputStream(OTHER_TERRITORY.getBytes(StandardCharsets.UTF_8)));
+        final RecordingTerritorySink replayed = new RecordingTerritorySink();
+
+        TerritoryLoader.initializeFor(replayed).loadFromParsedTerritory(cache.getOrLoad("b.ter", this::read));
+
+        assertEquals(parsed.getCalls(), replayed.getCalls());
+    }
+
+    private byte[] read(final String resourceName) throws IOException {
+        final String content = resources.get(resourceName);
+        if (content == null) {
+            throw new IOException("no resource " + resourceName);
+        }
+        readCounts.merge(resourceName, 1, Integer::sum);
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private int readCount(final String resourceName) {
+        return readCounts.getOrDefault(resourceName, 0);
+    }
+}
@@ -0,0 +1,57 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the calls of a territory source as readable lines, e.g. {@code "wall 2,0"}.
+ */
+final class RecordingTerritorySink implements TerritorySink {
+    private final List<String> calls = new ArrayList<>();
+
+    List<String> getCalls() {
+        return calls;
+    }
+
+    @Override
+    public void initTerritory(final int columnCount, final int rowCount) {
+        calls.add("init " + columnCount + "x" + rowCount);
+    }
+
+    @Override
+    public void addWall(final Location location) {
+        calls.add("wall " + format(location));
+    }
+
+    @Override
+    public void endRow(final int row) {
+        calls.add("endRow " + row);
+    }
+
+    @Override
+    public void initDefaultLadybug(final Location location, final Direction direction) {
+        calls.add("ladybug " + format(location) + " " + direction);
+    }
+
+    @Override
+    public void addClover(final Location location, final int count) {
+        calls.add("clover " + format(location) + " " + count);
+    }
+
+    @Override
+    public void finishTerritory() {
+        calls.add("finish");
+    }
+
+    @Override
+    public void abortTerritory() {
+        calls.add("abort");
+    }
+
+    private static String format(final Location location) {
+        return location.getColumn() + "," + location.getRow();
+    }
+}
@@ -0,0 +1,107 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TerritoryGeneratorTest {
+
+    @Test
+    void sameSeedGeneratesSameTerritory() throws IOException {
+        assertEquals(text(TerritoryGenerator.maze(41, 21, 7)), text(TerritoryGenerator.maze(41, 21, 7)));
+        assertEquals(text(field(7)), text(field(7)));
+    }
+
+    @Test
+    void differentSeedsGenerateDifferentTerritories() throws IOException {
+        assertNotEquals(text(TerritoryGenerator.maze(41, 21, 7)), text(TerritoryGenerator.maze(41, 21, 8)));
+        assertNotEquals(text(field(7)), text(field(8)));
+    }
+
+    @Test
+    void writtenTerritoryLoadsLikeGeneratedTerritory() throws IOException {
+        for (final TerritoryGenerator generator : List.of(TerritoryGenerator.maze(41, 21, 7), field(7))) {
+            final RecordingTerritorySink generated = new RecordingTerritorySink();
+            generator.generateInto(generated);
+            final RecordingTerritorySink loaded = new RecordingTerritorySink();
+
+            TerritoryLoader.initializeFor(loaded).loadFromInputStream(
+                    new ByteArrayInputStream(text(generator).getBytes(StandardCharsets.UTF_8)));
+
+            // the .ter format lists a clover count of 0 for the tile of the default ladybug
+            final List<String> loadedCalls = loaded.getCalls().stream()
+                    .filter(call -> !(call.startsWith("clover ") && call.endsWith(" 0")))
+                    .collect(Collectors.toList());
+            assertEquals(generated.getCalls(), loadedCalls);
+        }
+    }
+
+    @Test
+    void territoryIsEnclosedByWalls() throws IOException {
+        for (final TerritoryGenerator generator : List.of(TerritoryGenerator.maze(40, 20, 3), field(3))) {
+            final String[] rows = rows(generator);
+
+            assertTrue(rows[0].chars().allMatch(tile -> tile == '#'));
+            assertTrue(rows[rows.length - 1].chars().allMatch(tile -> tile == '#'));
+            for (final String row : rows) {
+                assertEquals('#', row.charAt(0));
+                assertEquals('#', row.charAt(row.length() - 1));
+            }
+        }
+    }
+
+    @Test
+    void spawnPointsAreDistinctFreeTilesWithoutClovers() throws IOException {
+        final TerritoryGenerator generator = field(11).setSpawnPointCount(20);
+        final String[] rows = rows(generator);
+        final Set<String> locations = new HashSet<>();
+
+        for (final TerritoryGenerator.SpawnPoint spawnPoint : generator.getSpawnPoints()) {
+            final Location location = spawnPoint.getLocation();
+            final char tile = rows[location.getRow()].charAt(location.getColumn());
+            assertNotEquals('#', tile);
+            assertNotEquals('*', tile);
+            assertTrue(locations.add(location.getColumn() + "," + location.getRow()));
+        }
+        assertEquals(20, locations.size());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> TerritoryGenerator.maze(2, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> TerritoryGenerator.openField(10, TerritoryGenerator.MAXIMUM_SIZE + 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> field(1).setWallDensity(1));
+        assertThrows(IllegalArgumentException.class, () -> field(1).setSpawnPointCount(0));
+    }
+
+    private static TerritoryGenerator field(final long seed) {
+        return TerritoryGenerator.openField(40, 30, seed)
+                .setWallDensity(0.2)
+                .setCloverDensity(0.1)
+                .setCloverDistribution(TerritoryGenerator.CloverDistribution.CLUSTERED);
+    }
+
+    private static String text(final TerritoryGenerator generator) throws IOException {
+        final StringWriter writer = new StringWriter();
+        generator.writeTo(writer);
+        return writer.toString();
+    }
+
+    private static String[] rows(final TerritoryGenerator generator) throws IOException {
+        final String[] lines = text(generator).split("\n");
+        final int rowCount = Integer.parseInt(lines[1]);
+        final String[] rows = new String[rowCount];
+        System.arraycopy(lines, 2, rows, 0, rowCount);
+        return rows;
+    }
+}
@@ -0,0 +1,123 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TerritoryHistoryTest {
+    private static final String TERRITORY = "5\n3\n#####\n#> *#\n#####\n0\n2\n0\n";
+    private static final double MAXIMUM_SPEED = 10.0;
+
+    private HamsterGame game;
+    private Ladybug ladybug;
+    private int ladybugNumber;
+    private TerritoryHistory history;
+
+    @BeforeEach
+    void startGame() throws IOException {
+        game = new HamsterGame();
+        game.hardReset();
+        TerritoryLoader.initializeFor(game).loadFromInputStream(new ByteArrayInputStream(TERRITORY.getBytes(StandardCharsets.UTF_8)));
+        history = new TerritoryHistory(game);
+        game.setSpeed(MAXIMUM_SPEED);
+        game.startGame();
+        ladybug = game.getTerritory().getDefaultHamster();
+        ladybugNumber = LadybugRegistry.of(game.getTerritory()).getNumber(ladybug);
+    }
+
+    @AfterEach
+    void stopGame() {
+        history.close();
+        game.stopGame();
+    }
+
+    @Test
+    void reconstructsEveryStep() {
+        ladybug.move();
+        ladybug.move();
+        ladybug.pickClover();
+        ladybug.turnLeft();
+
+        assertEquals(0, history.getOldestStep());
+        assertEquals(4, history.getLatestStep());
+        assertLadybug(history.getSnapshot(0), 1, 1, Direction.EAST);
+        assertEquals(2, history.getSnapshot(0).getCloverCount(new Location(3, 1)));
+        assertLadybug(history.getSnapshot(1), 2, 1, Direction.EAST);
+        assertLadybug(history.getSnapshot(2), 3, 1, Direction.EAST);
+        assertEquals(2, history.getSnapshot(2).getCloverCount(new Location(3, 1)));
+        assertEquals(1, history.getSnapshot(3).getCloverCount(new Location(3, 1)));
+        assertLadybug(history.getSnapshot(4), 3, 1, Direction.NORTH);
+        assertTrue(history.getSnapshot(4).hasWall(new Location(3, 0)));
+    }
+
+    @Test
+    void notifiesStepListenersOfEachCommand() {
+        final List<Long> steps = new CopyOnWriteArrayList<>();
+        history.addStepListener(steps::add);
+
+        ladybug.move();
+        ladybug.turnLeft();
+
+        assertEquals(List.of(1L, 2L), steps);
+    }
+
+    @Test
+    void evictsWholeSegmentsBeyondMemoryCap() {
+        history.setMemoryCap(1);
+        ladybug.move();
+        for (int i = 2; i < TerritoryHistory.MINIMUM_SEGMENT_LENGTH; i++) {
+            ladybug.turnLeft();
+        }
+
+        assertEquals(0, history.getOldestStep());
+
+        ladybug.turnLeft();
+
+        final long oldestStep = TerritoryHistory.MINIMUM_SEGMENT_LENGTH;
+        assertEquals(oldestStep, history.getOldestStep());
+        assertThrows(IllegalArgumentException.class, () -> history.getSnapshot(oldestStep - 1));
+        assertLadybug(history.getSnapshot(oldestStep), 2, 1, Direction.SOUTH);
+    }
+
+    @Test
+    void restartsWhenTerritoryIsReplaced() throws IOException {
+        ladybug.move();
+
+        game.hardReset();
+        TerritoryLoader.initializeFor(game).loadFromInputStream(new ByteArrayInputStream(TERRITORY.getBytes(StandardCharsets.UTF_8)));
+        game.startGame();
+        ladybug.turnLeft();
+
+        assertEquals(2, history.getOldestStep());
+        assertLadybug(history.getSnapshot(2), 1, 1, Direction.NORTH);
+        assertEquals(2, history.getSnapshot(2).getCloverCount(new Location(3, 1)));
+    }
+
+    @Test
+    void stopsRecordingWhenClosed() {
+        ladybug.move();
+
+        history.close();
+        ladybug.turnLeft();
+
+        assertEquals(1, history.getLatestStep());
+        assertLadybug(history.getSnapshot(1), 2, 1, Direction.EAST);
+    }
+
+    private void assertLadybug(final TerritorySnapshot snapshot, final int column, final int row, final Direction direction) {
+        final Location location = snapshot.getLadybugLocation(ladybugNumber).orElseThrow();
+        assertEquals(column, location.getColumn());
+        assertEquals(row, location.getRow());
+        assertEquals(direction, snapshot.getLadybugDirection(ladybugNumber).orElseThrow());
+    }
+}
@@ -0,0 +1,135 @@
+package de.unistuttgart.hamster.facade;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TerritoryLoaderTest {
+    private static final String TERRITORY = "5\n3\n#####\n#> *#\n#####\n0\n2\n0\n";
+
+    private static final List<String> TERRITORY_CALLS = List.of(
+            "init 5x3",
+            "wall 0,0", "wall 1,0", "wall 2,0", "wall 3,0", "wall 4,0", "endRow 0",
+            "wall 0,1", "wall 4,1", "endRow 1",
+            "wall 0,2", "wall 1,2", "wall 2,2", "wall 3,2", "wall 4,2", "endRow 2",
+            "ladybug 1,1 EAST",
+            "clover 1,1 0",
+            "clover 3,1 2",
+            "finish");
+
+    @Test
+    void loadsTextTerritory() throws IOException {
+        final RecordingTerritorySink sink = new RecordingTerritorySink();
+
+        TerritoryLoader.initializeFor(sink).loadFromInputStream(streamOf(TERRITORY));
+
+        assertEquals(TERRITORY_CALLS, sink.getCalls());
+    }
+
+    @Test
+    void loadsMappedFileLikeTextTerritory(@TempDir final Path directory) throws IOException {
+        final Path file = Files.writeString(directory.resolve("territory.ter"), TERRITORY);
+        final RecordingTerritorySink sink = new RecordingTerritorySink();
+
+        TerritoryLoader.initializeFor(sink).loadFromFile(file);
+
+        assertEquals(TERRITORY_CALLS, sink.getCalls());
+    }
+
+    @Test
+    void loadsMappedFileWithWindowsLineEndings(@TempDir final Path directory) throws IOException {
+        final Path file = Files.writeString(directory.resolve("territory.ter"), TERRITORY.replace("\n", "\r\n"));
+        final RecordingTerritorySink sink = new RecordingTerritorySink();
+
+        TerritoryLoader.initializeFor(sink).loadFromFile(file);
+
+        assertEquals(TERRITORY_CALLS, sink.getCalls());
+    }
+
+    @Test
+    void loadsBinaryTerritoryLikeTextTerritory() throws IOException {
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        TerritoryLoader.initializeFor(new BinaryTerritoryWriter(binary)).loadFromInputStream(streamOf(TERRITORY));
+        final RecordingTerritorySink sink = new RecordingTerritorySink();
+
+        TerritoryLoader.initializeFor(sink).loadFromBinaryInputStream(new ByteArrayInputStream(binary.toByteArray()));
+
+        // tiles without clovers are not part of the binary clover table
+        final List<String> expectedCalls = new ArrayList<>(TERRITORY_CALLS);
+        expectedCalls.remove("clover 1,1 0");
+        assertEquals(expectedCalls, sink.getCalls());
+    }
+
+    @Test
+    void resetsParseStateBetweenLoads() throws IOException {
+        final RecordingTerritorySink sink = new RecordingTerritorySink();
+        final TerritoryLoader loader = TerritoryLoader.initializeFor(sink);
+
+        loader.loadFromInputStream(streamOf(TERRITORY));
+        loader.loadFromInputStream(streamOf(TERRITORY));
+
+        final List<String> expectedCalls = new ArrayList<>(TERRITORY_CALLS);
+        expectedCalls.addAll(TERRITORY_CALLS);
+        assertEquals(expectedCalls, sink.getCalls());
+    }
+
+    @Test
+    void abortsOnUnknownTileCode() {
+        final RecordingTerritorySink sink = new RecordingTerritorySink();
+        final TerritoryLoader loader = TerritoryLoader.initializeFor(sink);
+
+        assertThrows(RuntimeException.class, () -> loader.loadFromInputStream(streamOf("3\n3\n###\n#x#\n###\n0\n")));
+
+        assertEquals("abort", lastCall(sink));
+        assertFalse(sink.getCalls().contains("finish"));
+    }
+
+    @Test
+    void abortsOnNegativeInitialCloverCount() {
+        final RecordingTerritorySink sink = new RecordingTerritorySink();
+        final TerritoryLoader loader = TerritoryLoader.initializeFor(sink);
+
+        assertThrows(RuntimeException.class, () -> loader.loadFromInputStream(streamOf("3\n3\n###\n#>#\n###\n0\n-1\n")));
+
+        assertEquals("abort", lastCall(sink));
+    }
+
+    @Test
+    void abortsOnTruncatedMappedFile(@TempDir final Path directory) throws IOException {
+        final Path file = Files.writeString(directory.resolve("territory.ter"), "5\n3\n#####\n#> *#\n#####\n0\n");
+        final RecordingTerritorySink sink = new RecordingTerritorySink();
+        final TerritoryLoader loader = TerritoryLoader.initializeFor(sink);
+
+        assertThrows(NumberFormatException.class, () -> loader.loadFromFile(file));
+
+        assertEquals("abort", lastCall(sink));
+    }
+
+    @Test
+    void abortsOnMissingBinaryHeaderBeforeInitializing() {
+        final RecordingTerritorySink sink = new RecordingTerritorySink();
+        final TerritoryLoader loader = TerritoryLoader.initializeFor(sink);
+
+        assertThrows(IOException.class, () -> loader.loadFromBinaryInputStream(streamOf(TERRITORY)));
+
+        assertEquals(List.of("abort"), sink.getCalls());
+    }
+
+    private static ByteArrayInputStream streamOf(final String territory) {
+        return new ByteArrayInputStream(territory.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String lastCall(final RecordingTerritorySink sink) {
+        return sink.getCalls().get(sink.getCalls().size() - 1);
+    }
+}
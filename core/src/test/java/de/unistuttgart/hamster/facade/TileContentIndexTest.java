@@ -0,0 +1,113 @@
+package de.unistuttgart.hamster.facade;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Direction;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.Tile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileContentIndexTest {
+    private static final String TERRITORY = "5\n3\n#####\n#> *#\n#####\n0\n300\n0\n";
+    private static final String OTHER_TERRITORY = "4\n3\n####\n#>*#\n####\n0\n1\n0\n";
+    private static final double MAXIMUM_SPEED = 10.0;
+
+    private HamsterGame game;
+    private Ladybug ladybug;
+    private TileContentIndex index;
+
+    @BeforeEach
+    void startGame() throws IOException {
+        game = new HamsterGame();
+        load(TERRITORY);
+        index = TileContentIndex.of(game.getTerritory());
+        game.setSpeed(MAXIMUM_SPEED);
+        game.startGame();
+        ladybug = game.getTerritory().getDefaultHamster();
+    }
+
+    @Test
+    void indexesLoadedTerritory() {
+        assertTrue(index.hasWall(tileAt(0, 0)));
+        assertFalse(index.hasWall(tileAt(1, 1)));
+        assertEquals(300, index.getCloverCount(tileAt(3, 1)));
+        assertEquals(0, index.getCloverCount(tileAt(2, 1)));
+        assertEquals(List.of(ladybug), index.getOccupants(tileAt(1, 1)));
+        assertEquals(Optional.empty(), index.getFirstOccupant(tileAt(2, 1)));
+    }
+
+    @Test
+    void followsCommands() {
+        ladybug.move();
+        ladybug.move();
+        ladybug.pickClover();
+        ladybug.pickClover();
+        ladybug.putClover();
+
+        assertEquals(299, index.getCloverCount(tileAt(3, 1)));
+        assertTrue(index.getOccupants(tileAt(1, 1)).isEmpty());
+        assertEquals(Optional.of(ladybug), index.getFirstOccupant(tileAt(3, 1)));
+    }
+
+    @Test
+    void keepsOccupantsInTheOrderTheyEntered() {
+        final Ladybug second = new Ladybug(game.getTerritory(), new Location(2, 1), Direction.WEST);
+        ladybug.move();
+
+        assertEquals(List.of(second, ladybug), index.getOccupants(tileAt(2, 1)));
+        assertEquals(Optional.of(second), index.getFirstOccupant(tileAt(2, 1)));
+    }
+
+    @Test
+    void notifiesListenersAfterUpdatingTheSlots() {
+        final List<Integer> cloverCounts = new CopyOnWriteArrayList<>();
+        index.addTileContentListener(new TileContentListener() {
+            @Override
+            public void contentAdded(final Tile tile, final Object content) {
+            }
+
+            @Override
+            public void contentRemoved(final Tile tile, final Object content) {
+                cloverCounts.add(index.getCloverCount(tile));
+            }
+        });
+        ladybug.move();
+        ladybug.move();
+
+        ladybug.pickClover();
+
+        assertEquals(List.of(0, 0, 299), cloverCounts);
+    }
+
+    @Test
+    void indexesReplacedTiles() throws IOException {
+        final Tile replaced = tileAt(3, 1);
+
+        load(OTHER_TERRITORY);
+
+        assertEquals(0, index.getCloverCount(replaced));
+        assertEquals(1, index.getCloverCount(tileAt(2, 1)));
+        assertTrue(index.hasWall(tileAt(3, 1)));
+        assertEquals(List.of(game.getTerritory().getDefaultHamster()), index.getOccupants(tileAt(1, 1)));
+    }
+
+    private void load(final String territory) throws IOException {
+        game.hardReset();
+        TerritoryLoader.initializeFor(game).loadFromInputStream(new ByteArrayInputStream(territory.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Tile tileAt(final int column, final int row) {
+        return game.getTerritory().getInternalTerritory().tilesProperty().stream()
+                .filter(tile -> tile.getLocation().getColumn() == column && tile.getLocation().getRow() == row)
+                .findFirst()
+                .orElseThrow();
+    }
+}
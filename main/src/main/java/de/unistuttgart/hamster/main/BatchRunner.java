@@ -0,0 +1,300 @@
+package de.unistuttgart.hamster.main;
+
+import de.unistuttgart.hamster.facade.GameLogObserver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs many simple ladybug game programs in one JVM. Each program runs headless in its own game
+ * on its own thread, at most as many at once as there are cores, and the outcome, the number of
+ * executed commands and the wall time of every program is written to a JSON Lines report.
+ * <p>
+ * Usage: {@code BatchRunner [--threads n] [--timeout seconds] [--report file] <class name | class directory | jar>...}
+ */
+public final class BatchRunner {
+    private static final String DEFAULT_REPORT_FILE = "batch-report.jsonl";
+    private static final long DEFAULT_TIMEOUT_SECONDS = 60;
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    /**
+     * Possible outcomes of a program run.
+     * No enum is used for the same reason as for the UI modes of SimpleLadybugGame.
+     */
+    private static final class Outcome {
+        static final String COMPLETED = "COMPLETED";
+        static final String FAILED = "FAILED";
+        static final String TIMED_OUT = "TIMED_OUT";
+        static final String NOT_LOADABLE = "NOT_LOADABLE";
+    }
+
+    private static final class ProgramResult {
+        final String program;
+        final String outcome;
+        final int steps;
+        final long wallTimeNanos;
+        final Throwable error;
+
+        ProgramResult(final String program, final String outcome, final int steps, final long wallTimeNanos, final Throwable error) {
+            this.program = program;
+            this.outcome = outcome;
+            this.steps = steps;
+            this.wallTimeNanos = wallTimeNanos;
+            this.error = error;
+        }
+    }
+
+    /*
+     * A program running on its own daemon thread, which holds one of the free workers until the program finishes or
+     * times out. A timed out program is reported as such, and its thread is interrupted and abandoned, as threads
+     * cannot be killed. Its worker is freed for the next program, so a program ignoring the interrupt cannot stall
+     * the batch.
+     */
+    private static final class ProgramRun {
+        private final String program;
+        private final Semaphore freeWorkers;
+        private final long start = System.nanoTime();
+        private final long deadline;
+        private final AtomicInteger steps = new AtomicInteger();
+        private final CompletableFuture<ProgramResult> result = new CompletableFuture<>();
+        private final Thread thread;
+        private volatile ScheduledFuture<?> timeout;
+
+        ProgramRun(final Class<? extends SimpleLadybugGame> programClass, final long timeoutNanos, final Semaphore freeWorkers) {
+            this.program = programClass.getName();
+            this.freeWorkers = freeWorkers;
+            this.deadline = start + timeoutNanos;
+            this.thread = new Thread(() -> complete(execute(programClass, steps, start)), "batch-program-" + programClass.getSimpleName());
+            this.thread.setDaemon(true);
+        }
+
+        void start(final ScheduledExecutorService watchdog) {
+            timeout = watchdog.schedule(this::completeTimedOut, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            thread.start();
+        }
+
+        private void complete(final ProgramResult programResult) {
+            if (result.complete(programResult)) {
+                timeout.cancel(false);
+                freeWorkers.release();
+            }
+        }
+
+        private void completeTimedOut() {
+            if (result.complete(new ProgramResult(program, Outcome.TIMED_OUT, steps.get(), System.nanoTime() - start, null))) {
+                thread.interrupt();
+                freeWorkers.release();
+            }
+        }
+
+        /*
+         * Waits no longer than the deadline of the program, in case the watchdog is late.
+         */
+        ProgramResult awaitResult() {
+            try {
+                return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (final TimeoutException e) {
+                completeTimedOut();
+                return result.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                completeTimedOut();
+                return result.join();
+            } catch (final ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private long timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+    private Path reportFile = Paths.get(DEFAULT_REPORT_FILE);
+    private final List<String> programClassNames = new ArrayList<>();
+    private final List<URL> programLocations = new ArrayList<>();
+
+    private BatchRunner() { }
+
+    public static void main(final String[] args) throws IOException {
+        final BatchRunner runner = new BatchRunner();
+        runner.parseArguments(args);
+        runner.runAll();
+    }
+
+    private void parseArguments(final String[] args) throws IOException {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threadCount = Integer.parseInt(args[++i]);
+                    break;
+                case "--timeout":
+                    timeoutSeconds = Long.parseLong(args[++i]);
+                    break;
+                case "--report":
+                    reportFile = Paths.get(args[++i]);
+                    break;
+                default:
+                    addProgramSource(args[i]);
+            }
+        }
+        if (programClassNames.isEmpty()) {
+            throw new IllegalArgumentException("Usage: BatchRunner [--threads n] [--timeout seconds] [--report file] "
+                    + "<class name | class directory | jar>...");
+        }
+    }
+
+    private void addProgramSource(final String source) throws IOException {
+        final Path path = Paths.get(source);
+        if (Files.isDirectory(path)) {
+            programLocations.add(path.toUri().toURL());
+            programClassNames.addAll(findClassNames(path));
+        } else if (source.endsWith(".jar") && Files.isRegularFile(path)) {
+            programLocations.add(path.toUri().toURL());
+            try (FileSystem jar = FileSystems.newFileSystem(path, (ClassLoader) null)) {
+                programClassNames.addAll(findClassNames(jar.getPath("/")));
+            }
+        } else {
+            programClassNames.add(source);
+        }
+    }
+
+    private static List<String> findClassNames(final Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.map(root::relativize)
+                    .map(Path::toString)
+                    .filter(name -> name.endsWith(CLASS_FILE_SUFFIX) && !name.contains("$") && !name.endsWith("module-info.class"))
+                    .map(name -> name.substring(0, name.length() - CLASS_FILE_SUFFIX.length()).replace(root.getFileSystem().getSeparator(), "."))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void runAll() throws IOException {
+        System.setProperty(SimpleLadybugGame.OUTPUT_INTERFACE_SYSTEM_PROPERTY_NAME, "NONE");
+        final ClassLoader programLoader = new URLClassLoader(programLocations.toArray(new URL[0]), BatchRunner.class.getClassLoader());
+        final Semaphore freeWorkers = new Semaphore(threadCount);
+        final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(daemonThreads("batch-watchdog"));
+        int programCount = 0;
+        final long start = System.nanoTime();
+        try (BufferedWriter report = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8)) {
+            final List<ProgramRun> runs = new ArrayList<>();
+            for (final String className : programClassNames) {
+                final Class<? extends SimpleLadybugGame> programClass = loadProgramClass(programLoader, className);
+                if (programClass != null) {
+                    freeWorkers.acquireUninterruptibly();
+                    final ProgramRun run = new ProgramRun(programClass, TimeUnit.SECONDS.toNanos(timeoutSeconds), freeWorkers);
+                    run.start(watchdog);
+                    runs.add(run);
+                }
+            }
+            for (final ProgramRun run : runs) {
+                writeResult(report, run.awaitResult());
+                programCount++;
+            }
+        } finally {
+            watchdog.shutdownNow();
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Ran %d programs in %.2f s (%.1f programs/s), report written to %s%n",
+                programCount, seconds, programCount / seconds, reportFile);
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static Class<? extends SimpleLadybugGame> loadProgramClass(final ClassLoader loader, final String className) {
+        try {
+            final Class<?> candidate = Class.forName(className, false, loader);
+            if (SimpleLadybugGame.class.isAssignableFrom(candidate) && !Modifier.isAbstract(candidate.getModifiers())) {
+                return candidate.asSubclass(SimpleLadybugGame.class);
+            }
+        } catch (final ClassNotFoundException | LinkageError e) {
+            System.err.println("Skipping " + className + ": " + e);
+        }
+        return null;
+    }
+
+    private static ProgramResult execute(final Class<? extends SimpleLadybugGame> programClass, final AtomicInteger steps, final long start) {
+        final String name = programClass.getName();
+        final SimpleLadybugGame program;
+        try {
+            program = programClass.getConstructor().newInstance();
+        } catch (final ReflectiveOperationException e) {
+            final Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+            return new ProgramResult(name, Outcome.NOT_LOADABLE, 0, System.nanoTime() - start, cause);
+        }
+        final GameLogObserver stepCounter = new GameLogObserver(program.game, entry -> steps.incrementAndGet());
+        try {
+            program.doRun();
+            return new ProgramResult(name, Outcome.COMPLETED, steps.get(), System.nanoTime() - start, null);
+        } catch (final RuntimeException | Error e) {
+            return new ProgramResult(name, Outcome.FAILED, steps.get(), System.nanoTime() - start, e);
+        } finally {
+            stepCounter.detach();
+        }
+    }
+
+    private static void writeResult(final BufferedWriter report, final ProgramResult result) {
+        try {
+            report.write("{\"program\":\"" + escapeJson(result.program)
+                    + "\",\"outcome\":\"" + result.outcome
+                    + "\",\"steps\":" + result.steps
+                    + ",\"wallTimeMillis\":" + TimeUnit.NANOSECONDS.toMillis(result.wallTimeNanos)
+                    + (result.error == null ? "" : ",\"error\":\"" + escapeJson(String.valueOf(result.error)) + "\"")
+                    + "}");
+            report.newLine();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String escapeJson(final String value) {
+        final StringBuilder result = new StringBuilder(value.length());
+        for (final char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        result.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        result.append(c);
+                    }
+            }
+        }
+        return result.toString();
+    }
+}
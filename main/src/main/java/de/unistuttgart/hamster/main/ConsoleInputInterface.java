@@ -0,0 +1,73 @@
+package de.unistuttgart.hamster.main;
+
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.UserInputInterface;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+
+/**
+ * User input interface for headless games. Input is read line by line from standard input and
+ * alerts are printed to standard error, so no dialog and no UI toolkit is needed.
+ * Reading after the end of standard input throws an {@link UncheckedIOException}, as there is no
+ * value which could be returned instead.
+ */
+class ConsoleInputInterface implements UserInputInterface {
+
+    private static final BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+
+    @Override
+    public int readInteger(final String message) {
+        String line = readLine(message);
+        while (!validateInt(line)) {
+            line = readLine(message);
+        }
+        return Integer.parseInt(line.trim());
+    }
+
+    @Override
+    public String readString(final String message) {
+        String line = readLine(message);
+        while (line.isEmpty()) {
+            line = readLine(message);
+        }
+        return line;
+    }
+
+    private String readLine(final String message) {
+        System.out.println(message);
+        synchronized (input) {
+            try {
+                final String line = input.readLine();
+                if (line == null) {
+                    throw new EOFException("end of standard input reached");
+                }
+                return line;
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private boolean validateInt(final String s) {
+        try {
+            final int result = Integer.parseInt(s.trim());
+            return result >= 0;
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void confirmAlert(final Throwable t) {
+        System.err.println("An exception of type " + t.getClass().getSimpleName() +
+                " occurred.\n" + t.getMessage() + ".\nProgram execution will be aborted. Please " +
+                "fix your program and try again.");
+    }
+
+    @Override
+    public void abort() {
+    }
+}
@@ -1,14 +1,21 @@
 package de.unistuttgart.hamster.main;
 
+import de.unistuttgart.hamster.facade.CommandEvents;
+import de.unistuttgart.hamster.facade.CommandTraceRecorder;
 import de.unistuttgart.hamster.facade.TerritoryLoader;
 import de.unistuttgart.hamster.facade.Ladybug;
 import de.unistuttgart.hamster.facade.HamsterGame;
+import de.unistuttgart.hamster.facade.JsonLinesLogSink;
 import de.unistuttgart.hamster.ui.JavaFXUI;
+import de.unistuttgart.hamster.viewmodel.impl.HamsterColors;
+import de.unistuttgart.hamster.ui.TerritoryRenderer;
 import de.unistuttgart.iste.sqa.mpw.framework.exceptions.GameAbortedException;
 
 import java.io.Console;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static de.unistuttgart.iste.sqa.mpw.framework.utils.Preconditions.*;
@@ -30,6 +37,45 @@ public abstract class SimpleLadybugGame {
      */
     private static final String OUTPUT_INTERFACE_ENVIRONMENT_VARIABLE_NAME = "OUTPUT_INTERFACE";
 
+    /**
+     * Name of the system property used to determine the output interface.
+     * It takes precedence over the environment variable.
+     */
+    static final String OUTPUT_INTERFACE_SYSTEM_PROPERTY_NAME = "hamster.output.interface";
+
+    /**
+     * Name of the system property used to determine the renderer of the territory.
+     * It takes precedence over the environment variable.
+     */
+    private static final String TERRITORY_RENDERER_SYSTEM_PROPERTY_NAME = "hamster.territory.renderer";
+
+    /**
+     * Name of the environment variable used to determine the renderer of the territory.
+     */
+    private static final String TERRITORY_RENDERER_ENVIRONMENT_VARIABLE_NAME = "TERRITORY_RENDERER";
+
+    /**
+     * Name of the system property containing the file the game log is written to as JSON Lines.
+     * It takes precedence over the environment variable. The log is not written if neither is set.
+     */
+    private static final String LOG_FILE_SYSTEM_PROPERTY_NAME = "hamster.log.file";
+
+    /**
+     * Name of the environment variable containing the file the game log is written to as JSON Lines.
+     */
+    private static final String LOG_FILE_ENVIRONMENT_VARIABLE_NAME = "LOG_FILE";
+
+    /**
+     * Name of the system property containing the file the executed commands are recorded to as a command trace.
+     * It takes precedence over the environment variable. No trace is recorded if neither is set.
+     */
+    private static final String TRACE_FILE_SYSTEM_PROPERTY_NAME = "hamster.trace.file";
+
+    /**
+     * Name of the environment variable containing the file the executed commands are recorded to as a command trace.
+     */
+    private static final String TRACE_FILE_ENVIRONMENT_VARIABLE_NAME = "TRACE_FILE";
+
     /**
      * Variable inherited to child classes containing the default hamster
      * which is named hamster here. Intentionally, no getter or setter is used
@@ -101,31 +147,118 @@ public abstract class SimpleLadybugGame {
      * while running.
      */
     public final void doRun() {
+        CommandEvents.enableFor(this.game);
+        final List<AutoCloseable> recordings = openRecordings();
+        Throwable failure = null;
         try {
             this.run();
         } catch (final GameAbortedException e) {
             // End this game
         } catch (final RuntimeException e) {
+            failure = e;
             this.game.confirmAlert(e);
             throw e;
+        } catch (final Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            closeRecordings(recordings, failure);
         }
         this.game.stopGame();
     }
 
+    /**
+     * Starts writing the game log to the file given by the system property hamster.log.file or the environment
+     * variable LOG_FILE and recording the command trace to the file given by the system property
+     * hamster.trace.file or the environment variable TRACE_FILE, if set
+     *
+     * @return the started recordings, which have to be closed when the run ends
+     */
+    private List<AutoCloseable> openRecordings() {
+        final List<AutoCloseable> recordings = new ArrayList<>();
+        try {
+            final Optional<Path> logFile = getSetting(LOG_FILE_SYSTEM_PROPERTY_NAME, LOG_FILE_ENVIRONMENT_VARIABLE_NAME)
+                    .map(Path::of);
+            if (logFile.isPresent()) {
+                recordings.add(JsonLinesLogSink.writeToFile(this.game, logFile.get(), HamsterColors::getColorForNthHamster));
+            }
+            final Optional<Path> traceFile = getSetting(TRACE_FILE_SYSTEM_PROPERTY_NAME, TRACE_FILE_ENVIRONMENT_VARIABLE_NAME)
+                    .map(Path::of);
+            if (traceFile.isPresent()) {
+                recordings.add(CommandTraceRecorder.recordToFile(this.game, traceFile.get()));
+            }
+        } catch (final IOException e) {
+            final RuntimeException failure = new RuntimeException("failed to open a recording file", e);
+            closeRecordings(recordings, failure);
+            throw failure;
+        }
+        return recordings;
+    }
+
+    /**
+     * Looks up a setting, which is given by a system property named hamster.* or by an environment variable
+     *
+     * @param systemPropertyName the name of the system property, which takes precedence
+     * @param environmentVariableName the name of the environment variable used if the system property is not set
+     * @return the value of the setting, or an empty optional if neither is set
+     */
+    private static Optional<String> getSetting(final String systemPropertyName, final String environmentVariableName) {
+        return Optional.ofNullable(System.getProperty(systemPropertyName))
+                .or(() -> Optional.ofNullable(System.getenv(environmentVariableName)));
+    }
+
+    /**
+     * Closes all recordings. Failures to close are added as suppressed exceptions to the failure
+     * of the run, so they do not mask it.
+     *
+     * @param recordings the recordings to close
+     * @param failure the exception the run failed with, or null if it did not fail
+     * @throws RuntimeException if the run did not fail but a recording could not be closed
+     */
+    private static void closeRecordings(final List<AutoCloseable> recordings, final Throwable failure) {
+        RuntimeException closeFailure = null;
+        for (final AutoCloseable recording : recordings) {
+            try {
+                recording.close();
+            } catch (final Exception e) {
+                if (failure != null) {
+                    failure.addSuppressed(e);
+                } else if (closeFailure == null) {
+                    closeFailure = new RuntimeException("failed to write a recording file", e);
+                } else {
+                    closeFailure.addSuppressed(e);
+                }
+            }
+        }
+        if (closeFailure != null) {
+            throw closeFailure;
+        }
+    }
+
     /**
      * Displays the hamster game in a new game window
-     * The UI type can be specified in the config file or in the environment variable
-     * OUTPUT_INTERFACE. Possible values are JAVA_FX and NONE
+     * The UI type can be specified in the system property hamster.output.interface or in the environment
+     * variable OUTPUT_INTERFACE. Possible values are JAVA_FX and NONE
      * The default is JAVA_FX.
+     * With NONE, the game runs headless: no view is created, the JavaFX toolkit is not started
+     * and commands are executed without any delay, whatever the speed of the game.
+     * The renderer of the territory can be specified in the system property hamster.territory.renderer
+     * or in the environment variable TERRITORY_RENDERER. Possible values are GRID and CANVAS. By default,
+     * large territories are rendered on a canvas, all others in a grid.
      */
     protected void displayInNewGameWindow() {
-        final String mode = UIMode.JAVA_FX;
+        final String mode = getUIMode();
         switch (mode) {
             case UIMode.JAVA_FX:
-                JavaFXUI.displayInNewGameWindow(this.game);
+                final Optional<TerritoryRenderer> renderer = getTerritoryRenderer();
+                if (renderer.isPresent()) {
+                    JavaFXUI.displayInNewGameWindow(this.game, renderer.get());
+                } else {
+                    JavaFXUI.displayInNewGameWindow(this.game);
+                }
                 break;
             case UIMode.NONE:
-                // ignore
+                runHeadless();
                 break;
             default:
                 throw new IllegalStateException("Unknown output interface type, possible values are: " +
@@ -150,8 +283,7 @@ public abstract class SimpleLadybugGame {
      */
     protected final void loadTerritoryFromResourceFile(final String fileName) {
         checkNotNull(fileName);
-        final InputStream territoryFileStream = getClass().getClassLoader().getResourceAsStream(fileName);
-        checkArgument(territoryFileStream != null, "territory file '" + fileName + "' not found");
+        checkArgument(getClass().getClassLoader().getResource(fileName) != null, "territory file '" + fileName + "' not found");
         try {
             game.hardReset();
             TerritoryLoader.initializeFor(game).loadFromResourceFile(fileName);
@@ -160,22 +292,43 @@ public abstract class SimpleLadybugGame {
         }
     }
 
+    private void runHeadless() {
+        this.game.setUserInputInterface(new ConsoleInputInterface());
+        this.game.getPerformance().disableDelay();
+    }
+
+    /**
+     * Determines the UI mode from the system property or the environment variable
+     *
+     * @return The UI mode, JAVA_FX if neither the system property nor the environment variable is set
+     */
+    private static String getUIMode() {
+        return getSetting(OUTPUT_INTERFACE_SYSTEM_PROPERTY_NAME, OUTPUT_INTERFACE_ENVIRONMENT_VARIABLE_NAME)
+                .orElse(UIMode.JAVA_FX);
+    }
+
     /**
-     * Loads the UI Mode from the environment variable if possible
+     * Determines the territory renderer from the system property or the environment variable
      *
-     * @return The UI mode if the environment variable was set, otherwise an empty optional
+     * @return The renderer, or an empty optional if neither the system property nor the environment variable is set
      * @throws IllegalStateException if an illegal value is set
      */
-    private static Optional<String> getUIModeFromEnvironmentVariable() {
-        final String value = System.getenv(SimpleLadybugGame.OUTPUT_INTERFACE_ENVIRONMENT_VARIABLE_NAME);
-        if (value != null) {
-            try {
-                return Optional.of(value);
-            } catch (final IllegalArgumentException e) {
-                throw new IllegalStateException("Illegal environmental variable", e);
-            }
-        } else {
-            return Optional.empty();
+    private static Optional<TerritoryRenderer> getTerritoryRenderer() {
+        return getSetting(TERRITORY_RENDERER_SYSTEM_PROPERTY_NAME, TERRITORY_RENDERER_ENVIRONMENT_VARIABLE_NAME)
+                .map(SimpleLadybugGame::toTerritoryRenderer);
+    }
+
+    /*
+     * No valueOf is used for the same reason as no enum is used for the UI modes.
+     */
+    private static TerritoryRenderer toTerritoryRenderer(final String name) {
+        switch (name) {
+            case "GRID":
+                return TerritoryRenderer.GRID;
+            case "CANVAS":
+                return TerritoryRenderer.CANVAS;
+            default:
+                throw new IllegalStateException("Unknown territory renderer, possible values are: GRID or CANVAS");
         }
     }
 
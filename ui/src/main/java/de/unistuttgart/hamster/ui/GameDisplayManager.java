@@ -0,0 +1,126 @@
+package de.unistuttgart.hamster.ui;
+
+import de.unistuttgart.hamster.facade.HamsterGame;
+import de.unistuttgart.hamster.viewmodel.impl.HamsterGameViewPresenter;
+import de.unistuttgart.iste.sqa.mpw.framework.mpw.UserInputInterface;
+import javafx.application.Platform;
+import javafx.stage.WindowEvent;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static de.unistuttgart.iste.sqa.mpw.framework.utils.Preconditions.*;
+
+/**
+ * Displays any number of games at once, sharing the single JavaFX toolkit of the JVM.
+ * Each game gets its own window, its own input interface, whose dialogs only block the window of
+ * the game, and its own {@link RenderBudget}. The scene graph updates of all windows are applied
+ * fairly, see {@link UIUpdateQueue}, so one busy game does not starve the windows of the others.
+ */
+public final class GameDisplayManager {
+
+    private static final Object toolkitLock = new Object();
+    private static volatile boolean isToolkitStarted = false;
+    private static final Map<HamsterGame, JavaFXInputInterface> inputInterfaces =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private GameDisplayManager() { }
+
+    /**
+     * Starts the JavaFX toolkit if not already started, e.g. by {@link JavaFXUI} or by an application
+     * which launched it itself. Blocks until the toolkit is running.
+     */
+    public static void startToolkit() {
+        if (isToolkitStarted) {
+            return;
+        }
+        synchronized (toolkitLock) {
+            if (isToolkitStarted) {
+                return;
+            }
+            final CountDownLatch startedLatch = new CountDownLatch(1);
+            try {
+                Platform.startup(startedLatch::countDown);
+            } catch (final IllegalStateException alreadyStarted) {
+                startedLatch.countDown();
+            }
+            try {
+                startedLatch.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            isToolkitStarted = true;
+        }
+    }
+
+    /**
+     * Displays the game in a new window with the {@link RenderBudget#DEFAULT default budget}.
+     * Large territories are rendered with {@link TerritoryRenderer#CANVAS}, all others with {@link TerritoryRenderer#GRID}.
+     * @param game the game to display
+     */
+    public static void display(final HamsterGame game) {
+        display(game, RenderBudget.DEFAULT);
+    }
+
+    /**
+     * Displays the game in a new window which is updated within the given budget.
+     * Large territories are rendered with {@link TerritoryRenderer#CANVAS}, all others with {@link TerritoryRenderer#GRID}.
+     * @param game the game to display
+     * @param budget limits the rendering work of the window
+     */
+    public static void display(final HamsterGame game, final RenderBudget budget) {
+        display(game, null, budget);
+    }
+
+    /**
+     * Displays the game in a new window which renders the territory with the given renderer and
+     * is updated within the given budget. Returns once the window is shown.
+     * @param game the game to display
+     * @param territoryRenderer the renderer used for the territory
+     * @param budget limits the rendering work of the window
+     */
+    public static void display(final HamsterGame game, final TerritoryRenderer territoryRenderer,
+                               final RenderBudget budget) {
+        checkNotNull(game);
+        checkNotNull(budget);
+        startToolkit();
+        final HamsterGameViewPresenter gameViewPresenter = new HamsterGameViewPresenter(game);
+        gameViewPresenter.bind();
+        final JavaFXInputInterface inputInterface = new JavaFXInputInterface();
+        inputInterfaces.put(game, inputInterface);
+        game.setUserInputInterface(inputInterface);
+        final TerritoryRenderer renderer = territoryRenderer != null
+                ? territoryRenderer
+                : JavaFXUI.getDefaultRendererFor(gameViewPresenter.getViewModel());
+        final AtomicReference<IOException> failure = new AtomicReference<>();
+        JavaFXUtil.blockingExecuteOnFXThread(() -> {
+            try {
+                final GameStage stage = new GameStage(gameViewPresenter, gameViewPresenter.getViewModel(), renderer, budget);
+                inputInterface.setOwner(stage);
+                // the input interface is referenced by the game, which is referenced by the window
+                stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, event -> inputInterfaces.remove(game, inputInterface));
+                stage.show();
+            } catch (final IOException e) {
+                failure.set(e);
+            }
+        });
+        if (failure.get() != null) {
+            inputInterfaces.remove(game, inputInterface);
+            inputInterface.confirmAlert(failure.get());
+        }
+    }
+
+    /**
+     * @param game a game
+     * @return the input interface of the window of the game, or an empty optional if the game is not displayed
+     *         or its window was closed
+     */
+    public static Optional<UserInputInterface> getInputInterface(final HamsterGame game) {
+        return Optional.ofNullable(inputInterfaces.get(game));
+    }
+}
@@ -0,0 +1,173 @@
+package de.unistuttgart.hamster.ui;
+
+import de.unistuttgart.hamster.viewmodel.impl.GameViewSeekInput;
+import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.GameViewInput;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Passes the input of a game window to its game, one command after another on a single thread per game.
+ * Commands which have not started yet are coalesced with newer ones:
+ * <ul>
+ *     <li>only the latest speed of consecutive speed changes is applied</li>
+ *     <li>only the latest step of consecutive seeks is shown</li>
+ *     <li>consecutive undos and redos are reduced to their net count</li>
+ *     <li>repeated plays or pauses collapse to one, a play directly followed by a pause (or vice versa) cancels out</li>
+ *     <li>once the window is closed, no further commands are accepted</li>
+ * </ul>
+ */
+final class GameInputExecutor {
+
+    private enum Kind { SPEED, SEEK, HISTORY, PLAY, PAUSE, CLOSE }
+
+    /*
+     * A pending command. For SPEED, the value is the speed, for SEEK the step, for HISTORY the number of redos,
+     * where negative numbers are undos.
+     */
+    private static final class Command {
+        final Kind kind;
+        double value;
+
+        Command(final Kind kind, final double value) {
+            this.kind = kind;
+            this.value = value;
+        }
+    }
+
+    private final GameViewInput gameViewInput;
+    private final ExecutorService executor;
+    private final Deque<Command> pendingCommands = new ArrayDeque<>();
+    private boolean isDrainScheduled = false;
+    private boolean isClosed = false;
+
+    GameInputExecutor(final GameViewInput gameViewInput) {
+        this.gameViewInput = gameViewInput;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "game-input");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void playClicked() {
+        submit(Kind.PLAY, 0);
+    }
+
+    void pauseClicked() {
+        submit(Kind.PAUSE, 0);
+    }
+
+    void undoClicked() {
+        submit(Kind.HISTORY, -1);
+    }
+
+    void redoClicked() {
+        submit(Kind.HISTORY, 1);
+    }
+
+    void speedChanged(final double speed) {
+        submit(Kind.SPEED, speed);
+    }
+
+    /**
+     * Requires that the game view input is a {@link GameViewSeekInput}.
+     */
+    void seekTo(final long step) {
+        submit(Kind.SEEK, step);
+    }
+
+    void close() {
+        submit(Kind.CLOSE, 0);
+    }
+
+    private synchronized void submit(final Kind kind, final double value) {
+        if (isClosed) {
+            return;
+        }
+        isClosed = kind == Kind.CLOSE;
+        coalesce(kind, value);
+        if (!isDrainScheduled) {
+            isDrainScheduled = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    private void coalesce(final Kind kind, final double value) {
+        final Command last = pendingCommands.peekLast();
+        if (last != null) {
+            if (last.kind == kind && (kind == Kind.SPEED || kind == Kind.SEEK)) {
+                last.value = value;
+                return;
+            } else if (last.kind == kind && kind == Kind.HISTORY) {
+                last.value += value;
+                if (last.value == 0) {
+                    pendingCommands.removeLast();
+                }
+                return;
+            } else if (last.kind == kind && (kind == Kind.PLAY || kind == Kind.PAUSE)) {
+                return;
+            } else if ((last.kind == Kind.PLAY && kind == Kind.PAUSE) || (last.kind == Kind.PAUSE && kind == Kind.PLAY)) {
+                pendingCommands.removeLast();
+                return;
+            }
+        }
+        pendingCommands.addLast(new Command(kind, value));
+    }
+
+    private void drain() {
+        Command command = nextCommand();
+        while (command != null) {
+            try {
+                execute(command);
+            } catch (final RuntimeException e) {
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+            if (command.kind == Kind.CLOSE) {
+                executor.shutdown();
+                return;
+            }
+            command = nextCommand();
+        }
+    }
+
+    private synchronized Command nextCommand() {
+        final Command command = pendingCommands.pollFirst();
+        if (command == null) {
+            isDrainScheduled = false;
+        }
+        return command;
+    }
+
+    private void execute(final Command command) {
+        switch (command.kind) {
+            case SPEED:
+                gameViewInput.speedChanged(command.value);
+                break;
+            case SEEK:
+                ((GameViewSeekInput) gameViewInput).seekTo((long) command.value);
+                break;
+            case HISTORY:
+                for (int i = 0; i < Math.abs(command.value); i++) {
+                    if (command.value < 0) {
+                        gameViewInput.undoClicked();
+                    } else {
+                        gameViewInput.redoClicked();
+                    }
+                }
+                break;
+            case PLAY:
+                gameViewInput.playClicked();
+                break;
+            case PAUSE:
+                gameViewInput.pauseClicked();
+                break;
+            case CLOSE:
+                gameViewInput.close();
+                break;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package de.unistuttgart.hamster.ui;
+
+import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.ViewModelLogEntry;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The log shown in a game window. Keeps only the most recent lines in a bounded ring buffer and collapses
+ * consecutive identical entries into a single line with a repeat count.
+ * Entries appended by the simulation are collected and applied once per pulse in a single batch.
+ * If entries are removed from the view model log, e.g. by undo, the lines are rebuilt from its tail.
+ * <p>
+ * The view model log is changed by the simulation thread, so it is only read there: the tail of the log
+ * is copied by the listener of the change which removed entries, and handed to the JavaFX application
+ * thread together with the entries appended since.
+ */
+final class GameLogModel {
+
+    /**
+     * The default number of lines kept.
+     */
+    static final int DEFAULT_CAPACITY = 1000;
+
+    private final ObservableList<ViewModelLogEntry> source;
+    private final UIUpdateQueue updateQueue;
+    private final LogLineRingBuffer lines;
+    private final AtomicBoolean isUpdateScheduled = new AtomicBoolean(false);
+    private final Runnable onLinesAppended;
+    // guarded by this, filled by the thread changing the source and drained by the JavaFX application thread
+    private final List<ViewModelLogEntry> pendingEntries = new ArrayList<>();
+    private List<ViewModelLogEntry> pendingTail;
+
+    private final ListChangeListener<ViewModelLogEntry> sourceListener = new ListChangeListener<>() {
+        @Override
+        public void onChanged(final Change<? extends ViewModelLogEntry> change) {
+            boolean wasRemoved = false;
+            final List<ViewModelLogEntry> added = new ArrayList<>();
+            while (change.next()) {
+                wasRemoved |= change.wasRemoved();
+                if (change.wasAdded()) {
+                    added.addAll(change.getAddedSubList());
+                }
+            }
+            synchronized (GameLogModel.this) {
+                if (wasRemoved) {
+                    pendingTail = copyTail(change.getList());
+                    pendingEntries.clear();
+                } else {
+                    pendingEntries.addAll(added);
+                }
+            }
+            scheduleUpdate();
+        }
+    };
+
+    /**
+     * @param source the log entries of the view model
+     * @param updateQueue the queue of the window showing the log
+     * @param capacity the maximum number of lines kept
+     * @param onLinesAppended called on the JavaFX application thread after a batch of lines was appended
+     */
+    GameLogModel(final ObservableList<ViewModelLogEntry> source, final UIUpdateQueue updateQueue, final int capacity,
+                 final Runnable onLinesAppended) {
+        this.source = source;
+        this.updateQueue = updateQueue;
+        this.lines = new LogLineRingBuffer(capacity);
+        this.onLinesAppended = onLinesAppended;
+        synchronized (this) {
+            source.addListener(sourceListener);
+            pendingTail = copyTail(source);
+        }
+        scheduleUpdate();
+    }
+
+    /**
+     * @return the lines to display, only modified on the JavaFX application thread
+     */
+    ObservableList<LogLine> getLines() {
+        return lines;
+    }
+
+    void dispose() {
+        source.removeListener(sourceListener);
+    }
+
+    private void scheduleUpdate() {
+        if (isUpdateScheduled.compareAndSet(false, true)) {
+            updateQueue.submit(this::update);
+        }
+    }
+
+    /*
+     * Copies the last entries of the log. Apart from the initial copy, the log is copied by the thread changing it.
+     * If the window is opened while a program runs, an append may interfere with the initial copy, so it is retried.
+     */
+    private List<ViewModelLogEntry> copyTail(final List<? extends ViewModelLogEntry> log) {
+        while (true) {
+            try {
+                final int size = log.size();
+                return new ArrayList<>(log.subList(Math.max(0, size - lines.capacity), size));
+            } catch (final ConcurrentModificationException | IndexOutOfBoundsException e) {
+                // the log changed while copying it
+            }
+        }
+    }
+
+    private void update() {
+        isUpdateScheduled.set(false);
+        final List<ViewModelLogEntry> tail;
+        final List<ViewModelLogEntry> entries;
+        synchronized (this) {
+            tail = pendingTail;
+            pendingTail = null;
+            entries = new ArrayList<>(pendingEntries);
+            pendingEntries.clear();
+        }
+        if (tail != null) {
+            tail.addAll(entries);
+            lines.clearAndAppend(tail.subList(Math.max(0, tail.size() - lines.capacity), tail.size()));
+        } else {
+            lines.append(entries);
+        }
+        if (tail != null ? !tail.isEmpty() : !entries.isEmpty()) {
+            onLinesAppended.run();
+        }
+    }
+
+    /**
+     * A line of the log, showing a message which was logged count times in a row.
+     */
+    static final class LogLine {
+        private final String message;
+        private final Color color;
+        private final int count;
+
+        LogLine(final String message, final Color color, final int count) {
+            this.message = message;
+            this.color = color;
+            this.count = count;
+        }
+
+        String getText() {
+            return count == 1 ? message : message + " (" + count + "x)";
+        }
+
+        Color getColor() {
+            return color;
+        }
+
+        boolean continuesWith(final String otherMessage, final Color otherColor) {
+            return Objects.equals(message, otherMessage) && Objects.equals(color, otherColor);
+        }
+
+        LogLine repeated(final int times) {
+            return new LogLine(message, color, count + times);
+        }
+    }
+
+    /*
+     * Fixed size ring buffer of lines. A batch of appends fires a single change which
+     * updates the last line, drops the oldest lines and adds the new ones.
+     */
+    static final class LogLineRingBuffer extends ObservableListBase<LogLine> {
+        private final LogLine[] buffer;
+        private final int capacity;
+        private int head = 0;
+        private int size = 0;
+
+        LogLineRingBuffer(final int capacity) {
+            this.capacity = capacity;
+            this.buffer = new LogLine[capacity];
+        }
+
+        @Override
+        public LogLine get(final int index) {
+            Objects.checkIndex(index, size);
+            return buffer[(head + index) % capacity];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        void clearAndAppend(final List<ViewModelLogEntry> entries) {
+            beginChange();
+            if (size > 0) {
+                final List<LogLine> removed = new ArrayList<>(this);
+                head = 0;
+                size = 0;
+                nextRemove(0, removed);
+            }
+            appendLines(collapse(entries));
+            endChange();
+        }
+
+        void append(final List<ViewModelLogEntry> entries) {
+            if (entries.isEmpty()) {
+                return;
+            }
+            beginChange();
+            final List<LogLine> newLines = collapse(entries);
+            if (size > 0 && !newLines.isEmpty()) {
+                final LogLine last = get(size - 1);
+                final LogLine first = newLines.get(0);
+                if (last.continuesWith(first.message, first.color)) {
+                    replaceLine(size - 1, last.repeated(first.count));
+                    newLines.remove(0);
+                }
+            }
+            appendLines(newLines);
+            endChange();
+        }
+
+        private void replaceLine(final int index, final LogLine line) {
+            final LogLine old = get(index);
+            buffer[(head + index) % capacity] = line;
+            nextSet(index, old);
+        }
+
+        private void appendLines(final List<LogLine> newLines) {
+            final List<LogLine> added = newLines.subList(Math.max(0, newLines.size() - capacity), newLines.size());
+            final int overflow = Math.max(0, size + added.size() - capacity);
+            if (overflow > 0) {
+                final List<LogLine> removed = new ArrayList<>(subList(0, overflow));
+                head = (head + overflow) % capacity;
+                size -= overflow;
+                nextRemove(0, removed);
+            }
+            for (final LogLine line : added) {
+                buffer[(head + size) % capacity] = line;
+                size++;
+            }
+            if (!added.isEmpty()) {
+                nextAdd(size - added.size(), size);
+            }
+        }
+
+        private static List<LogLine> collapse(final List<ViewModelLogEntry> entries) {
+            final List<LogLine> collapsed = new ArrayList<>();
+            for (final ViewModelLogEntry entry : entries) {
+                final Color color = ViewModelColorConverter.toJavaFxColor(entry.getColor());
+                final int lastIndex = collapsed.size() - 1;
+                if (lastIndex >= 0 && collapsed.get(lastIndex).continuesWith(entry.getMessage(), color)) {
+                    collapsed.set(lastIndex, collapsed.get(lastIndex).repeated(1));
+                } else {
+                    collapsed.add(new LogLine(entry.getMessage(), color, 1));
+                }
+            }
+            return collapsed;
+        }
+    }
+}
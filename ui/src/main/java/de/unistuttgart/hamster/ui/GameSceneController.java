@@ -1,31 +1,33 @@
 package de.unistuttgart.hamster.ui;
 
+import de.unistuttgart.hamster.viewmodel.impl.GameViewSeekInput;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.GameViewInput;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.GameViewModel;
-import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.ViewModelLogEntry;
-import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
-import javafx.collections.ListChangeListener;
 import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
 import javafx.fxml.FXML;
-import javafx.scene.Parent;
 import javafx.scene.control.*;
+import javafx.scene.input.InputEvent;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Region;
+
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class GameSceneController {
 
-    class CellFormat extends ListCell<ViewModelLogEntry> {
+    static class CellFormat extends ListCell<GameLogModel.LogLine> {
         @Override
-        protected void updateItem(final ViewModelLogEntry logEntry, final boolean empty) {
-            Platform.runLater(() -> {
-                super.updateItem(logEntry, empty);
-                if (empty || logEntry == null) {
-                    setText(null);
-                } else {
-                    setText(logEntry.getMessage());
-                    setTextFill(ViewModelColorConverter.toJavaFxColor(logEntry.getColor()));
-                }
-            });
+        protected void updateItem(final GameLogModel.LogLine logLine, final boolean empty) {
+            super.updateItem(logLine, empty);
+            if (empty || logLine == null) {
+                setText(null);
+            } else {
+                setText(logLine.getText());
+                setTextFill(logLine.getColor());
+            }
         }
     }
 
@@ -36,11 +38,17 @@ public class GameSceneController {
     @FXML private Button undo;
     @FXML private Button redo;
     @FXML private Slider speed;
+    @FXML private Slider step;
+    @FXML private Label stepLabel;
     @FXML private HamsterTerritoryGrid hamsterGrid;
+    private HamsterTerritoryCanvas hamsterCanvas = null;
     @FXML private SplitPane splitPane;
-    @FXML private ListView<ViewModelLogEntry> log;
+    @FXML private ListView<GameLogModel.LogLine> log;
 
-    private GameViewInput gameViewInput;
+    private GameInputExecutor inputExecutor;
+    private UIUpdateQueue updateQueue;
+    private boolean isUpdatingStepRange = false;
+    private final AtomicBoolean isStepRangeUpdateScheduled = new AtomicBoolean(false);
 
     @FXML
     private void initialize() {
@@ -48,56 +56,142 @@ public class GameSceneController {
 
     @FXML
     void pauseGame(final ActionEvent event) {
-        new Thread(gameViewInput::pauseClicked).start();
+        inputExecutor.pauseClicked();
     }
 
     @FXML
     void undo(final ActionEvent event) {
-        new Thread(gameViewInput::undoClicked).start();
+        inputExecutor.undoClicked();
     }
 
     @FXML
     void redo(final ActionEvent event) {
-        new Thread(gameViewInput::redoClicked).start();
+        inputExecutor.redoClicked();
     }
 
     @FXML
     void startGame(final ActionEvent event) {
-        new Thread(gameViewInput::playClicked).start();
+        inputExecutor.playClicked();
+    }
+
+    public void connectToGame(final GameViewInput gameViewInput, final GameViewModel gameViewModel,
+                              final TerritoryRenderer territoryRenderer) {
+        connectToGame(gameViewInput, gameViewModel, territoryRenderer, RenderBudget.DEFAULT);
     }
 
-    @SuppressWarnings("unchecked")
-    public void connectToGame(final GameViewInput gameViewInput, final GameViewModel gameViewModel) {
-        this.gameViewInput = gameViewInput;
-        this.hamsterGrid.bindToViewModel(gameViewModel);
+    /**
+     * Connects the scene to the game, its view is updated within the given budget.
+     */
+    public void connectToGame(final GameViewInput gameViewInput, final GameViewModel gameViewModel,
+                              final TerritoryRenderer territoryRenderer, final RenderBudget budget) {
+        this.inputExecutor = new GameInputExecutor(gameViewInput);
+        this.updateQueue = new UIUpdateQueue(budget);
+        final Region territoryView = createTerritoryView(gameViewModel, territoryRenderer, budget);
 
-        this.root.minWidthProperty().bind(Bindings.max(hamsterGrid.minWidthProperty().add(toolbar.minWidthProperty()), 100));
-        this.root.minHeightProperty().bind(Bindings.max(hamsterGrid.minHeightProperty().add(toolbar.minHeightProperty()), 100));
+        this.root.minWidthProperty().bind(Bindings.max(territoryView.minWidthProperty().add(toolbar.minWidthProperty()), 100));
+        this.root.minHeightProperty().bind(Bindings.max(territoryView.minHeightProperty().add(toolbar.minHeightProperty()), 100));
         this.play.disableProperty().bind(gameViewModel.playButtonEnabledProperty().not());
         this.pause.disableProperty().bind(gameViewModel.pauseButtonEnabledProperty().not());
         this.undo.disableProperty().bind(gameViewModel.undoButtonEnabledProperty().not());
         this.redo.disableProperty().bind(gameViewModel.redoButtonEnabledProperty().not());
         this.speed.valueProperty().bindBidirectional(gameViewModel.speedProperty());
         this.speed.valueProperty().addListener((observableValue, oldValue, newValue) -> {
-            gameViewInput.speedChanged(this.speed.getValue());
+            inputExecutor.speedChanged(this.speed.getValue());
         });
 
         this.log.setCellFactory(list -> new CellFormat());
-        this.log.itemsProperty().bind(gameViewModel.logEntriesProperty());
-        this.log.getItems().addListener((ListChangeListener<ViewModelLogEntry>) changeListener -> {
-            changeListener.next();
-            final int size = log.getItems().size();
-            if (size > 1) {
-                JavaFXUtil.blockingExecuteOnFXThread(() -> {
-                    final Parent virtualFlow = (Parent) log.getChildrenUnmodifiable().get(0);
-                    final Parent group = (Parent) virtualFlow.getChildrenUnmodifiable().get(1);
-                    final Parent cell = (Parent) group.getChildrenUnmodifiable().get(0);
-                    final ListCell<ViewModelLogEntry> listCell = (ListCell<ViewModelLogEntry>) cell;
-                    final int visibleCells = (int) (log.getHeight() / listCell.getHeight());
-                    log.scrollTo(Math.max(0, size - visibleCells));
+        final GameLogModel logModel = new GameLogModel(gameViewModel.logEntriesProperty(), updateQueue,
+                GameLogModel.DEFAULT_CAPACITY, () -> log.scrollTo(log.getItems().size() - 1));
+        this.log.setItems(logModel.getLines());
+
+        if (gameViewInput instanceof GameViewSeekInput) {
+            connectStepScrubberOnFirstUse((GameViewSeekInput) gameViewInput);
+        } else {
+            this.step.setDisable(true);
+        }
+    }
+
+    /*
+     * The game only records the history the scrubber seeks in once it is connected, so this is deferred
+     * until the scrubber is pressed for the first time. Earlier steps cannot be shown.
+     */
+    private void connectStepScrubberOnFirstUse(final GameViewSeekInput seekInput) {
+        final EventHandler<InputEvent> firstUseFilter = new EventHandler<>() {
+            @Override
+            public void handle(final InputEvent event) {
+                step.removeEventFilter(MouseEvent.MOUSE_PRESSED, this);
+                step.removeEventFilter(KeyEvent.KEY_PRESSED, this);
+                connectStepScrubber(seekInput);
+            }
+        };
+        this.step.addEventFilter(MouseEvent.MOUSE_PRESSED, firstUseFilter);
+        this.step.addEventFilter(KeyEvent.KEY_PRESSED, firstUseFilter);
+    }
+
+    /*
+     * The scrubber follows the latest step while its thumb is at the end, dragging it back shows
+     * earlier steps of the game.
+     */
+    private void connectStepScrubber(final GameViewSeekInput seekInput) {
+        this.step.setBlockIncrement(1);
+        updateStepRange(seekInput.getOldestStep(), seekInput.getLatestStep());
+        seekInput.addStepListener(latestStep -> {
+            // at most one pending update per pulse, reading the range when it is applied
+            if (isStepRangeUpdateScheduled.compareAndSet(false, true)) {
+                updateQueue.submit(() -> {
+                    isStepRangeUpdateScheduled.set(false);
+                    updateStepRange(seekInput.getOldestStep(), seekInput.getLatestStep());
                 });
             }
         });
+        this.step.valueProperty().addListener((observableValue, oldValue, newValue) -> {
+            final long shownStep = Math.round(newValue.doubleValue());
+            this.stepLabel.setText(Long.toString(shownStep));
+            if (!isUpdatingStepRange) {
+                inputExecutor.seekTo(shownStep);
+            }
+        });
+    }
+
+    private void updateStepRange(final long oldestStep, final long latestStep) {
+        isUpdatingStepRange = true;
+        final boolean isFollowingLatestStep = this.step.getValue() >= this.step.getMax();
+        this.step.setMin(oldestStep);
+        this.step.setMax(latestStep);
+        if (isFollowingLatestStep) {
+            this.step.setValue(latestStep);
+        }
+        isUpdatingStepRange = false;
+    }
+
+    /**
+     * Closes the game, after all input given before was passed to it.
+     * Pending updates of the view are dropped and the territory view stops observing the view model.
+     */
+    public void close() {
+        inputExecutor.close();
+        if (hamsterCanvas != null) {
+            hamsterCanvas.unbind();
+        } else {
+            hamsterGrid.unbind();
+        }
+        updateQueue.dispose();
+    }
+
+    private Region createTerritoryView(final GameViewModel gameViewModel, final TerritoryRenderer territoryRenderer,
+                                       final RenderBudget budget) {
+        switch (territoryRenderer) {
+            case CANVAS:
+                this.hamsterCanvas = new HamsterTerritoryCanvas();
+                this.splitPane.getItems().set(this.splitPane.getItems().indexOf(hamsterGrid), hamsterCanvas);
+                hamsterCanvas.setRenderBudget(budget);
+                hamsterCanvas.bindToViewModel(gameViewModel);
+                return hamsterCanvas;
+            case GRID:
+            default:
+                this.hamsterGrid.bindToViewModel(gameViewModel, updateQueue);
+                return this.hamsterGrid;
+        }
     }
 
 }
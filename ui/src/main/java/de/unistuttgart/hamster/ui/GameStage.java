@@ -1,26 +1,53 @@
 package de.unistuttgart.hamster.ui;
 
+import de.unistuttgart.hamster.facade.GameMetrics;
+import de.unistuttgart.hamster.viewmodel.impl.HamsterGameViewPresenter;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.GameViewInput;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.GameViewModel;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.IOException;
 
 class GameStage extends Stage {
 
+    /**
+     * Name of the system property which enables the metrics overlay if set to true.
+     * It takes precedence over the environment variable.
+     */
+    private static final String METRICS_OVERLAY_SYSTEM_PROPERTY_NAME = "hamster.metrics.overlay";
+
+    /**
+     * Name of the environment variable which enables the metrics overlay if set to true.
+     */
+    private static final String METRICS_OVERLAY_ENVIRONMENT_VARIABLE_NAME = "METRICS_OVERLAY";
+
     private GameSceneController sceneController;
 
-    public GameStage(final GameViewInput gameViewInput, final GameViewModel gameViewModel) throws IOException {
+    public GameStage(final GameViewInput gameViewInput, final GameViewModel gameViewModel,
+                     final TerritoryRenderer territoryRenderer) throws IOException {
+        this(gameViewInput, gameViewModel, territoryRenderer, RenderBudget.DEFAULT);
+    }
+
+    public GameStage(final GameViewInput gameViewInput, final GameViewModel gameViewModel,
+                     final TerritoryRenderer territoryRenderer, final RenderBudget budget) throws IOException {
         super();
         prepareStage();
-        sceneController.connectToGame(gameViewInput, gameViewModel);
-        this.setOnCloseRequest(event -> {
-            new Thread(gameViewInput::close).start();
-        });
+        sceneController.connectToGame(gameViewInput, gameViewModel, territoryRenderer, budget);
+        if (isMetricsOverlayEnabled() && gameViewInput instanceof HamsterGameViewPresenter) {
+            addMetricsOverlay(((HamsterGameViewPresenter) gameViewInput).getMetrics());
+        }
+        this.setOnCloseRequest(event -> sceneController.close());
     }
 
     public void prepareStage() throws IOException {
@@ -33,6 +60,34 @@ class GameStage extends Stage {
         this.setScene(scene);
     }
 
+    /**
+     * Shows the metrics of the game on top of the scene, updated twice per second.
+     */
+    private void addMetricsOverlay(final GameMetrics metrics) {
+        final Label overlay = new Label();
+        overlay.setMouseTransparent(true);
+        overlay.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 4; -fx-font-family: monospace;");
+        StackPane.setAlignment(overlay, Pos.BOTTOM_LEFT);
+        final StackPane root = new StackPane(this.getScene().getRoot(), overlay);
+        this.getScene().setRoot(root);
+
+        final Timeline updater = new Timeline(new KeyFrame(Duration.millis(500), event -> overlay.setText(String.format(
+                "commands/s %.0f, log %d%ncell update mean %d ns, p99 %d ns%nFX wait mean %d ns, p99 %d ns%nUI queue %d",
+                metrics.getCommandsPerSecond(), metrics.getLogSize(),
+                metrics.getCellUpdateMeanNanos(), metrics.getCellUpdateP99Nanos(),
+                metrics.getFxThreadWaitMeanNanos(), metrics.getFxThreadWaitP99Nanos(),
+                metrics.getUiUpdateQueueDepth()))));
+        updater.setCycleCount(Animation.INDEFINITE);
+        updater.play();
+        this.setOnHidden(event -> updater.stop());
+    }
+
+    private static boolean isMetricsOverlayEnabled() {
+        final String value = System.getProperty(METRICS_OVERLAY_SYSTEM_PROPERTY_NAME,
+                System.getenv(METRICS_OVERLAY_ENVIRONMENT_VARIABLE_NAME));
+        return Boolean.parseBoolean(value);
+    }
+
     private Parent loadFromFXML() throws IOException {
         final FXMLLoader fxmlLoader = new FXMLLoader();
         fxmlLoader.setLocation(getClass().getClassLoader()
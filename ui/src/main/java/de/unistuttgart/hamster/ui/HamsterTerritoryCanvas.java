@@ -0,0 +1,545 @@
+package de.unistuttgart.hamster.ui;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Size;
+import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.GameViewModel;
+import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.ViewModelCell;
+import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.ViewModelCellLayer;
+import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.ViewModelRow;
+import javafx.animation.AnimationTimer;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.input.ZoomEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Renders the territory of a game view model onto a single canvas. Changes of the view model only
+ * mark the affected cells as dirty, once per JavaFX pulse the dirty cells are redrawn. Unlike
+ * {@link HamsterTerritoryGrid}, no nodes are created per tile, so this renderer is suited for large
+ * territories.
+ * The canvas only covers the visible viewport. The territory can be panned by dragging or scrolling
+ * and zoomed with the scroll wheel while holding control. If tiles get too small to show their images,
+ * blocks of tiles are drawn aggregated into a single color.
+ * The layers of the view model are changed by the simulation. After binding, they are only read by the
+ * thread changing them, which captures the state of the changed cell. Redraws on the JavaFX application
+ * thread only read these captured states.
+ */
+public class HamsterTerritoryCanvas extends Region {
+
+    private static final double MINIMUM_SIZE = 100.0;
+    private static final double MAXIMUM_TILE_SIZE = 64.0;
+    private static final double ZOOM_STEP = 1.1;
+
+    /*
+     * Below this tile size in pixels, tiles are aggregated into blocks of at least the block size.
+     * Each block is drawn in the color of its most important tile, read from the importances captured
+     * per tile, so no ladybug, wall or clover is skipped.
+     */
+    private static final double LOW_DETAIL_TILE_SIZE = 4.0;
+    private static final double MINIMUM_BLOCK_SIZE = 4.0;
+
+    private static final Color BACKGROUND_COLOR = Color.WHITE;
+    private static final Color TILE_COLOR = Color.GOLDENROD;
+    private static final Color GRID_COLOR = Color.BLACK;
+    private static final Color WALL_COLOR = Color.DARKGREEN;
+    private static final Color GRAIN_COLOR = Color.YELLOWGREEN;
+    private static final Color HAMSTER_COLOR = Color.CRIMSON;
+    // indexed by importance, see getImportance
+    private static final Color[] BLOCK_COLORS = {TILE_COLOR, GRAIN_COLOR, WALL_COLOR, HAMSTER_COLOR};
+    private static final int MAXIMUM_IMPORTANCE = BLOCK_COLORS.length - 1;
+
+    private final Canvas canvas = new Canvas();
+    private final Map<ViewModelCell, CellObserver> cellObservers = new ConcurrentHashMap<>();
+    private final Map<Long, CellObserver> cellObserversByLocation = new ConcurrentHashMap<>();
+    private final Queue<CellObserver> dirtyCells = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean fullRedrawRequired = new AtomicBoolean(true);
+    private GameViewModel viewModel;
+    private volatile Size gridSize = new Size(0, 0);
+    // the importance of each tile in row major order, written by the thread changing the view model
+    private volatile byte[] tileImportances = new byte[0];
+    private RenderBudget budget = RenderBudget.UNLIMITED;
+    private boolean hasRedrawn = false;
+    private long lastRedrawNanos;
+
+    /*
+     * The viewport, only accessed on the JavaFX application thread. The zoom is relative to the tile size
+     * which fits the whole territory into the viewport, the offsets are in pixels of the zoomed territory.
+     */
+    private double zoom = 1.0;
+    private double offsetX = 0.0;
+    private double offsetY = 0.0;
+    private double dragX;
+    private double dragY;
+
+    /*
+     * The visible layers of a cell at the time of its last change, in drawing order.
+     */
+    private static final class CellState {
+        static final CellState EMPTY = new CellState(new String[0], new double[0]);
+
+        final String[] imageNames;
+        final double[] rotations;
+
+        private CellState(final String[] imageNames, final double[] rotations) {
+            this.imageNames = imageNames;
+            this.rotations = rotations;
+        }
+
+        static CellState of(final ViewModelCell cell) {
+            final List<ViewModelCellLayer> layers = cell.getLayers();
+            final String[] imageNames = new String[layers.size()];
+            final double[] rotations = new double[layers.size()];
+            int visibleCount = 0;
+            for (final ViewModelCellLayer layer : layers) {
+                if (layer.isVisible() && layer.getImageName() != null) {
+                    imageNames[visibleCount] = layer.getImageName();
+                    rotations[visibleCount] = layer.getRotation();
+                    visibleCount++;
+                }
+            }
+            return visibleCount == 0 ? EMPTY : new CellState(Arrays.copyOf(imageNames, visibleCount), Arrays.copyOf(rotations, visibleCount));
+        }
+    }
+
+    /*
+     * Observes the layers of one cell, captures their state and marks the cell dirty on every change.
+     */
+    private final class CellObserver implements InvalidationListener, ListChangeListener<ViewModelCellLayer> {
+        private final ViewModelCell cell;
+        private final Location location;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private volatile CellState state = CellState.EMPTY;
+
+        CellObserver(final ViewModelCell cell) {
+            this.cell = cell;
+            this.location = cell.getLocation();
+            cell.layersProperty().addListener((ListChangeListener<ViewModelCellLayer>) this);
+            cell.layersProperty().forEach(this::observeLayer);
+        }
+
+        private void observeLayer(final ViewModelCellLayer layer) {
+            layer.visibleProperty().addListener(this);
+            layer.imageNameProperty().addListener(this);
+            layer.rotationProperty().addListener(this);
+        }
+
+        private void ignoreLayer(final ViewModelCellLayer layer) {
+            layer.visibleProperty().removeListener(this);
+            layer.imageNameProperty().removeListener(this);
+            layer.rotationProperty().removeListener(this);
+        }
+
+        @Override
+        public void onChanged(final Change<? extends ViewModelCellLayer> change) {
+            while (change.next()) {
+                if (change.wasAdded()) {
+                    change.getAddedSubList().forEach(this::observeLayer);
+                }
+                if (change.wasRemoved()) {
+                    change.getRemoved().forEach(this::ignoreLayer);
+                }
+            }
+            markDirty();
+        }
+
+        @Override
+        public void invalidated(final Observable observable) {
+            markDirty();
+        }
+
+        void markDirty() {
+            state = CellState.of(cell);
+            recordImportance(this);
+            if (dirty.compareAndSet(false, true)) {
+                dirtyCells.add(this);
+            }
+        }
+
+        void dispose() {
+            cell.layersProperty().removeListener((ListChangeListener<ViewModelCellLayer>) this);
+            cell.layersProperty().forEach(this::ignoreLayer);
+        }
+    }
+
+    private final ListChangeListener<ViewModelRow> rowsChangedListener = new ListChangeListener<>() {
+        @Override
+        public void onChanged(final Change<? extends ViewModelRow> change) {
+            while (change.next()) {
+                if (change.wasAdded()) {
+                    change.getAddedSubList().forEach(row -> addRow(row));
+                }
+                if (change.wasRemoved()) {
+                    change.getRemoved().forEach(row -> removeRow(row));
+                }
+            }
+        }
+    };
+
+    private final ListChangeListener<ViewModelCell> cellsChangedListener = new ListChangeListener<>() {
+        @Override
+        public void onChanged(final Change<? extends ViewModelCell> change) {
+            while (change.next()) {
+                if (change.wasAdded()) {
+                    change.getAddedSubList().forEach(cell -> addCell(cell));
+                }
+                if (change.wasRemoved()) {
+                    change.getRemoved().forEach(cell -> removeCell(cell));
+                }
+            }
+        }
+    };
+
+    private final ChangeListener<Size> sizeChangedListener = (obj, oldValue, newValue) -> {
+        this.gridSize = newValue;
+        resetImportances();
+        this.fullRedrawRequired.set(true);
+    };
+
+    private final AnimationTimer redrawTimer = new AnimationTimer() {
+        @Override
+        public void handle(final long now) {
+            if (hasRedrawn && !budget.isFrameDue(lastRedrawNanos, now)) {
+                return;
+            }
+            hasRedrawn = true;
+            lastRedrawNanos = now;
+            redraw();
+        }
+    };
+
+    public HamsterTerritoryCanvas() {
+        super();
+        this.getStyleClass().add("game-grid");
+        this.getChildren().add(canvas);
+        this.setMinSize(MINIMUM_SIZE, MINIMUM_SIZE);
+        this.widthProperty().addListener(obj -> fullRedrawRequired.set(true));
+        this.heightProperty().addListener(obj -> fullRedrawRequired.set(true));
+        this.addEventHandler(ScrollEvent.SCROLL, this::onScroll);
+        this.addEventHandler(ZoomEvent.ZOOM, event -> zoomAt(event.getZoomFactor(), event.getX(), event.getY()));
+        this.addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        this.addEventHandler(MouseEvent.MOUSE_DRAGGED, event -> {
+            panBy(dragX - event.getX(), dragY - event.getY());
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+    }
+
+    public void bindToViewModel(final GameViewModel viewModel) {
+        this.viewModel = viewModel;
+        this.gridSize = viewModel.getSize();
+        resetImportances();
+        this.viewModel.sizeProperty().addListener(sizeChangedListener);
+        this.viewModel.rowsProperty().addListener(rowsChangedListener);
+        this.viewModel.rowsProperty().forEach(this::addRow);
+        this.redrawTimer.start();
+    }
+
+    public void unbind() {
+        this.redrawTimer.stop();
+        this.viewModel.sizeProperty().removeListener(sizeChangedListener);
+        this.viewModel.rowsProperty().removeListener(rowsChangedListener);
+        for (var row : this.viewModel.getRows()) {
+            removeRow(row);
+        }
+    }
+
+    /**
+     * Limits how often the canvas is redrawn and how many dirty cells are redrawn per frame.
+     * Must be called on the JavaFX application thread.
+     */
+    public void setRenderBudget(final RenderBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @return the zoom relative to the zoom which fits the whole territory into the viewport
+     */
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Sets the zoom, keeping the center of the viewport in place.
+     * Must be called on the JavaFX application thread.
+     *
+     * @param zoom the zoom relative to the zoom which fits the whole territory into the viewport
+     */
+    public void setZoom(final double zoom) {
+        zoomAt(zoom / this.zoom, getWidth() / 2, getHeight() / 2);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        canvas.setWidth(getWidth());
+        canvas.setHeight(getHeight());
+        clampOffsets();
+    }
+
+    private void onScroll(final ScrollEvent event) {
+        if (event.isControlDown()) {
+            zoomAt(event.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP, event.getX(), event.getY());
+        } else {
+            panBy(-event.getDeltaX(), -event.getDeltaY());
+        }
+        event.consume();
+    }
+
+    private void zoomAt(final double factor, final double x, final double y) {
+        final double oldTileSize = getTileSize();
+        final double fitTileSize = getFitTileSize();
+        if (oldTileSize <= 0) {
+            return;
+        }
+        final double maximumZoom = Math.max(1.0, MAXIMUM_TILE_SIZE / fitTileSize);
+        zoom = Math.min(Math.max(zoom * factor, 1.0), maximumZoom);
+        final double scale = getTileSize() / oldTileSize;
+        offsetX = (offsetX + x) * scale - x;
+        offsetY = (offsetY + y) * scale - y;
+        clampOffsets();
+        fullRedrawRequired.set(true);
+    }
+
+    private void panBy(final double deltaX, final double deltaY) {
+        offsetX += deltaX;
+        offsetY += deltaY;
+        clampOffsets();
+        fullRedrawRequired.set(true);
+    }
+
+    private void clampOffsets() {
+        final Size size = gridSize;
+        final double tileSize = getTileSize();
+        offsetX = Math.min(Math.max(offsetX, 0), Math.max(0, size.getColumnCount() * tileSize - canvas.getWidth()));
+        offsetY = Math.min(Math.max(offsetY, 0), Math.max(0, size.getRowCount() * tileSize - canvas.getHeight()));
+    }
+
+    private void addRow(final ViewModelRow row) {
+        row.cellsProperty().addListener(cellsChangedListener);
+        row.cellsProperty().forEach(this::addCell);
+    }
+
+    private void removeRow(final ViewModelRow row) {
+        row.cellsProperty().removeListener(cellsChangedListener);
+        row.cellsProperty().forEach(this::removeCell);
+    }
+
+    private void addCell(final ViewModelCell cell) {
+        final CellObserver observer = cellObservers.computeIfAbsent(cell, CellObserver::new);
+        cellObserversByLocation.put(toKey(cell.getLocation().getColumn(), cell.getLocation().getRow()), observer);
+        observer.markDirty();
+    }
+
+    private void removeCell(final ViewModelCell cell) {
+        final CellObserver observer = cellObservers.remove(cell);
+        if (observer != null) {
+            cellObserversByLocation.remove(toKey(cell.getLocation().getColumn(), cell.getLocation().getRow()), observer);
+            observer.dispose();
+            observer.state = CellState.EMPTY;
+            recordImportance(observer);
+            fullRedrawRequired.set(true);
+        }
+    }
+
+    private static long toKey(final int column, final int row) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    private double getFitTileSize() {
+        final Size size = gridSize;
+        if (size.getColumnCount() == 0 || size.getRowCount() == 0) {
+            return 0;
+        }
+        return Math.min(canvas.getWidth() / size.getColumnCount(), canvas.getHeight() / size.getRowCount());
+    }
+
+    private double getTileSize() {
+        return getFitTileSize() * zoom;
+    }
+
+    /*
+     * The number of tiles per block edge drawn as one aggregated block, 1 if tiles are drawn in full detail.
+     */
+    private int getTilesPerBlock(final double tileSize) {
+        if (tileSize >= LOW_DETAIL_TILE_SIZE) {
+            return 1;
+        }
+        return (int) Math.ceil(MINIMUM_BLOCK_SIZE / tileSize);
+    }
+
+    private void redraw() {
+        final double tileSize = getTileSize();
+        if (tileSize <= 0) {
+            return;
+        }
+        final int tilesPerBlock = getTilesPerBlock(tileSize);
+        final GraphicsContext graphics = canvas.getGraphicsContext2D();
+        if (fullRedrawRequired.getAndSet(false)) {
+            redrawViewport(graphics, tileSize, tilesPerBlock);
+            return;
+        }
+        final Set<Long> redrawnBlocks = new HashSet<>();
+        int remainingCells = budget.getMaximumUpdatesPerPulse();
+        CellObserver observer = dirtyCells.poll();
+        while (observer != null) {
+            observer.dirty.set(false);
+            final Location location = observer.location;
+            if (tilesPerBlock == 1) {
+                if (isVisible(location.getColumn(), location.getRow(), 1, tileSize)) {
+                    drawCell(graphics, observer, tileSize);
+                }
+            } else {
+                final int blockColumn = location.getColumn() / tilesPerBlock * tilesPerBlock;
+                final int blockRow = location.getRow() / tilesPerBlock * tilesPerBlock;
+                if (isVisible(blockColumn, blockRow, tilesPerBlock, tileSize)
+                        && redrawnBlocks.add(toKey(blockColumn, blockRow))) {
+                    drawBlock(graphics, blockColumn, blockRow, tilesPerBlock, tileSize);
+                }
+            }
+            observer = --remainingCells > 0 ? dirtyCells.poll() : null;
+        }
+    }
+
+    private void redrawViewport(final GraphicsContext graphics, final double tileSize, final int tilesPerBlock) {
+        CellObserver observer = dirtyCells.poll();
+        while (observer != null) {
+            observer.dirty.set(false);
+            observer = dirtyCells.poll();
+        }
+        clampOffsets();
+        graphics.setFill(BACKGROUND_COLOR);
+        graphics.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+
+        final Size size = gridSize;
+        final int firstColumn = (int) (offsetX / tileSize) / tilesPerBlock * tilesPerBlock;
+        final int firstRow = (int) (offsetY / tileSize) / tilesPerBlock * tilesPerBlock;
+        final int lastColumn = Math.min(size.getColumnCount() - 1, (int) ((offsetX + canvas.getWidth()) / tileSize));
+        final int lastRow = Math.min(size.getRowCount() - 1, (int) ((offsetY + canvas.getHeight()) / tileSize));
+        for (int row = firstRow; row <= lastRow; row += tilesPerBlock) {
+            for (int column = firstColumn; column <= lastColumn; column += tilesPerBlock) {
+                if (tilesPerBlock == 1) {
+                    final CellObserver cellObserver = cellObserversByLocation.get(toKey(column, row));
+                    if (cellObserver != null) {
+                        drawCell(graphics, cellObserver, tileSize);
+                    }
+                } else {
+                    drawBlock(graphics, column, row, tilesPerBlock, tileSize);
+                }
+            }
+        }
+    }
+
+    private boolean isVisible(final int column, final int row, final int tileCount, final double tileSize) {
+        final double x = column * tileSize - offsetX;
+        final double y = row * tileSize - offsetY;
+        final double extent = tileCount * tileSize;
+        return x + extent > 0 && y + extent > 0 && x < canvas.getWidth() && y < canvas.getHeight();
+    }
+
+    private void drawCell(final GraphicsContext graphics, final CellObserver observer, final double tileSize) {
+        final Location location = observer.location;
+        final double x = location.getColumn() * tileSize - offsetX;
+        final double y = location.getRow() * tileSize - offsetY;
+        graphics.setFill(GRID_COLOR);
+        graphics.fillRect(x, y, tileSize, tileSize);
+        graphics.setFill(TILE_COLOR);
+        graphics.fillRect(x, y, Math.max(tileSize - 1, 1), Math.max(tileSize - 1, 1));
+        final CellState state = observer.state;
+        for (int i = 0; i < state.imageNames.length; i++) {
+            final Image image = SpriteCache.getImage(state.imageNames[i], state.rotations[i]);
+            if (image != null) {
+                graphics.drawImage(image, x, y, tileSize, tileSize);
+            }
+        }
+    }
+
+    /*
+     * Draws a block of tiles in the color of its most important tile.
+     * Hamsters take precedence over walls, walls over grains.
+     */
+    private void drawBlock(final GraphicsContext graphics, final int column, final int row,
+                           final int tilesPerBlock, final double tileSize) {
+        final Size size = gridSize;
+        final byte[] importances = tileImportances;
+        final int lastRow = Math.min(row + tilesPerBlock, size.getRowCount());
+        final int lastColumn = Math.min(column + tilesPerBlock, size.getColumnCount());
+        int importance = 0;
+        for (int tileRow = row; tileRow < lastRow && importance < MAXIMUM_IMPORTANCE; tileRow++) {
+            final int rowStart = tileRow * size.getColumnCount();
+            for (int tileColumn = column; tileColumn < lastColumn && rowStart + tileColumn < importances.length; tileColumn++) {
+                importance = Math.max(importance, importances[rowStart + tileColumn]);
+            }
+        }
+        graphics.setFill(BLOCK_COLORS[importance]);
+        final double extent = tilesPerBlock * tileSize;
+        graphics.fillRect(column * tileSize - offsetX, row * tileSize - offsetY, extent, extent);
+    }
+
+    private void recordImportance(final CellObserver observer) {
+        final byte[] importances = tileImportances;
+        final int index = observer.location.getRow() * gridSize.getColumnCount() + observer.location.getColumn();
+        if (index >= 0 && index < importances.length) {
+            importances[index] = (byte) Math.max(0, getImportance(getSummaryColor(observer.state)));
+        }
+    }
+
+    /*
+     * Sizes the importances to the grid and records those of the current cells.
+     */
+    private void resetImportances() {
+        final Size size = gridSize;
+        tileImportances = new byte[size.getColumnCount() * size.getRowCount()];
+        cellObservers.values().forEach(this::recordImportance);
+    }
+
+    private static Color getSummaryColor(final CellState state) {
+        Color color = TILE_COLOR;
+        for (final String imageName : state.imageNames) {
+            if (imageName.startsWith("Hamster")) {
+                color = moreImportantColor(color, HAMSTER_COLOR);
+            } else if (imageName.equals("Wall")) {
+                color = moreImportantColor(color, WALL_COLOR);
+            } else if (imageName.endsWith("Corn")) {
+                color = moreImportantColor(color, GRAIN_COLOR);
+            }
+        }
+        return color;
+    }
+
+    private static Color moreImportantColor(final Color first, final Color second) {
+        return getImportance(first) >= getImportance(second) ? first : second;
+    }
+
+    private static int getImportance(final Color color) {
+        if (color == HAMSTER_COLOR) {
+            return 3;
+        } else if (color == WALL_COLOR) {
+            return 2;
+        } else if (color == GRAIN_COLOR) {
+            return 1;
+        } else if (color == TILE_COLOR) {
+            return 0;
+        }
+        return -1;
+    }
+}
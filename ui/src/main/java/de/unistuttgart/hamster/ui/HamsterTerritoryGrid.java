@@ -6,7 +6,6 @@ import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Size;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.GameViewModel;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.ViewModelCell;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.ViewModelRow;
-import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.NumberBinding;
 import javafx.beans.property.ReadOnlyListWrapper;
@@ -26,13 +25,23 @@ public class HamsterTerritoryGrid extends StackPane {
 
     private static final double MINIMUM_TILE_SIZE = 20.0;
 
+    /*
+     * The grid never requires more pixels than this along an axis. Tiles of large territories get a
+     * smaller minimum size instead, so the window still fits on the screen. Very large territories
+     * are rendered by the HamsterTerritoryCanvas by default, which offers a viewport and zooming.
+     */
+    private static final double MAXIMUM_MINIMUM_EXTENT = 1000.0;
+
     final Map<Actor,Integer> hamsterToColorPos = new HashMap<>();
 
     private final SimpleObjectProperty<Size> gridSize = new SimpleObjectProperty<>(this, "gridSize", new Size(0, 0));
     private final ReadOnlyListWrapper<TileNode> nodes = new ReadOnlyListWrapper<>(this, "cells", FXCollections.observableArrayList());
     private final GridPane territoryGrid;
     private GameViewModel viewModel;
+    private UIUpdateQueue updateQueue;
+    private boolean ownsUpdateQueue = false;
     private NumberBinding squaredSize;
+    private double minimumTileSize = MINIMUM_TILE_SIZE;
 
     private final ListChangeListener<ViewModelRow> rowsChangedListener = new ListChangeListener<>() {
         @Override
@@ -73,7 +82,7 @@ public class HamsterTerritoryGrid extends StackPane {
         configureSquareSizedTiles(this.gridSize.get());
         this.gridSize.addListener((obj, oldValue, newValue) -> {
             hamsterToColorPos.clear();
-            Platform.runLater(() -> {
+            updateQueue.submit(() -> {
                 configureSquareSizedTiles(newValue);
                 this.territoryGrid.getChildren().clear();
             });
@@ -83,7 +92,29 @@ public class HamsterTerritoryGrid extends StackPane {
     }
 
     public void bindToViewModel(final GameViewModel viewModel) {
+        bindToViewModel(viewModel, RenderBudget.DEFAULT);
+    }
+
+    /**
+     * Binds the grid to the view model, applying its changes within the given budget.
+     * The changes are applied by a queue of the grid, which is disposed by {@link #unbind()}.
+     */
+    public void bindToViewModel(final GameViewModel viewModel, final RenderBudget budget) {
+        bindToViewModel(viewModel, new UIUpdateQueue(budget), true);
+    }
+
+    /**
+     * Binds the grid to the view model, applying its changes with the given queue of its window.
+     * The queue stays owned by the caller.
+     */
+    void bindToViewModel(final GameViewModel viewModel, final UIUpdateQueue updateQueue) {
+        bindToViewModel(viewModel, updateQueue, false);
+    }
+
+    private void bindToViewModel(final GameViewModel viewModel, final UIUpdateQueue updateQueue, final boolean ownsUpdateQueue) {
         this.viewModel = viewModel;
+        this.updateQueue = updateQueue;
+        this.ownsUpdateQueue = ownsUpdateQueue;
         this.gridSize.bind(this.viewModel.sizeProperty());
         this.viewModel.rowsProperty().addListener(rowsChangedListener);
         this.viewModel.rowsProperty().forEach(this::addRow);
@@ -93,6 +124,10 @@ public class HamsterTerritoryGrid extends StackPane {
         this.gridSize.unbind();
         this.viewModel.rowsProperty().removeListener(rowsChangedListener);
         unbindCells();
+        if (ownsUpdateQueue) {
+            updateQueue.dispose();
+            ownsUpdateQueue = false;
+        }
     }
 
     private void unbindCells() {
@@ -104,9 +139,10 @@ public class HamsterTerritoryGrid extends StackPane {
     private void configureSquareSizedTiles(final Size size) {
         final int columns = size.getColumnCount();
         final int rows = size.getRowCount();
+        this.minimumTileSize = Math.min(MINIMUM_TILE_SIZE, MAXIMUM_MINIMUM_EXTENT / Math.max(1, Math.max(columns, rows)));
         final NumberBinding pixPerCellWidth = this.widthProperty().divide(columns == 0 ? 1 : columns);
         final NumberBinding pixPerCellHeight = this.heightProperty().divide(rows == 0 ? 1 : rows);
-        this.squaredSize = Bindings.max(Bindings.min(pixPerCellHeight, pixPerCellWidth), MINIMUM_TILE_SIZE);
+        this.squaredSize = Bindings.max(Bindings.min(pixPerCellHeight, pixPerCellWidth), minimumTileSize);
 
         this.territoryGrid.getColumnConstraints().clear();
         for (int i = 0; i < columns; i++) {
@@ -124,8 +160,8 @@ public class HamsterTerritoryGrid extends StackPane {
 
         this.territoryGrid.maxWidthProperty().bind(squaredSize.multiply(columns));
         this.territoryGrid.maxHeightProperty().bind(squaredSize.multiply(rows));
-        this.territoryGrid.setMinWidth(MINIMUM_TILE_SIZE*columns);
-        this.territoryGrid.setMinHeight(MINIMUM_TILE_SIZE*rows);
+        this.territoryGrid.setMinWidth(minimumTileSize*columns);
+        this.territoryGrid.setMinHeight(minimumTileSize*rows);
 
         this.territoryGrid.setAlignment(Pos.CENTER);
     }
@@ -141,13 +177,14 @@ public class HamsterTerritoryGrid extends StackPane {
 
     private void addCell(final ViewModelCell cell) {
         final Location location = cell.getLocation();
-        setTileNodeAt(location, new TileNode(cell));
+        setTileNodeAt(location, new TileNode(cell, updateQueue));
     }
 
     private void removeCell(final ViewModelCell cell) {
         final Location location = cell.getLocation();
-        getTileNodeAt(location).dispose();
-        JavaFXUtil.blockingExecuteOnFXThread(() -> this.territoryGrid.getChildren().remove(getTileNodeAt(location)));
+        final TileNode node = getTileNodeAt(location);
+        node.dispose();
+        updateQueue.submitTileUpdate("removeTile", location, () -> this.territoryGrid.getChildren().remove(node));
         setTileNodeAt(location, null);
     }
 
@@ -166,8 +203,9 @@ public class HamsterTerritoryGrid extends StackPane {
             node.prefWidthProperty().bind(this.squaredSize);
             node.prefHeightProperty().bind(this.squaredSize);
             node.setMaxSize(USE_PREF_SIZE, USE_PREF_SIZE);
-            node.setMinSize(MINIMUM_TILE_SIZE, MINIMUM_TILE_SIZE);
-            Platform.runLater(() -> this.territoryGrid.add(node, location.getColumn(), location.getRow()));
+            node.setMinSize(minimumTileSize, minimumTileSize);
+            updateQueue.submitTileUpdate(
+                    "addTile", location, () -> this.territoryGrid.add(node, location.getColumn(), location.getRow()));
         }
     }
 
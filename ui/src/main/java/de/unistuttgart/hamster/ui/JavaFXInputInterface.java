@@ -6,49 +6,68 @@ import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanBinding;
 import javafx.scene.control.*;
 import javafx.scene.control.Alert.AlertType;
+import javafx.stage.Modality;
+import javafx.stage.Window;
 
+import java.lang.ref.WeakReference;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
-
+import java.util.function.Supplier;
+
+/**
+ * Asks the user for input in JavaFX dialogs. The calling thread waits for the answer while the dialog is shown
+ * without a nested event loop, so the dialogs of several windows can be answered in any order. Only dialogs
+ * requested on the JavaFX application thread itself are shown with a nested event loop, as this thread must
+ * not wait.
+ */
 public class JavaFXInputInterface implements UserInputInterface {
 
     private volatile Optional<Dialog<?>> currentDialog = Optional.empty();
+    private volatile WeakReference<Window> owner = new WeakReference<>(null);
+
+    /**
+     * Shows the dialogs of this input interface on top of the window, blocking only the input to it.
+     * Without an owner, dialogs block the input to all windows. The owner is only referenced weakly, so
+     * a game referring to this input interface does not keep its closed window alive.
+     * @param owner the window of the game this input interface belongs to
+     */
+    void setOwner(final Window owner) {
+        this.owner = new WeakReference<>(owner);
+    }
 
-    private class TextDialogWrapper {
-
-        Optional<String> result;
-
-        public void showAndWait(final String message, final String defaultValue, final Function<String, Boolean> validator) {
-            JavaFXUtil.blockingExecuteOnFXThread(() -> {
-                final TextInputDialog textInputDialog = new TextInputDialog(defaultValue);
-                currentDialog = Optional.of(textInputDialog);
-                textInputDialog.setTitle("Hamster needs input!");
-                textInputDialog.setHeaderText(message);
-
-                final Button okButton = (Button) textInputDialog.getDialogPane().lookupButton(ButtonType.OK);
-                textInputDialog.getDialogPane().getButtonTypes().remove(ButtonType.CANCEL);
-                final TextField inputField = textInputDialog.getEditor();
-                final BooleanBinding isInvalid = Bindings.createBooleanBinding(() -> !validator.apply(inputField.getText()), inputField.textProperty());
-                okButton.disableProperty().bind(isInvalid);
-                result = textInputDialog.showAndWait();
-                currentDialog = Optional.empty();
-            });
+    private void initOwner(final Dialog<?> dialog) {
+        final Window window = owner.get();
+        if (window != null) {
+            dialog.initOwner(window);
+            dialog.initModality(Modality.WINDOW_MODAL);
         }
-
     }
 
     @Override
     public int readInteger(final String message) {
-        final TextDialogWrapper wrapper = new TextDialogWrapper();
-        wrapper.showAndWait(message, "0", this::validateInt);
-        return wrapper.result.map(Integer::parseInt).orElse(-1);
+        return showTextDialog(message, "0", this::validateInt).map(Integer::parseInt).orElse(-1);
     }
 
     @Override
     public String readString(final String message) {
-        final TextDialogWrapper wrapper = new TextDialogWrapper();
-        wrapper.showAndWait(message, "", this::validateString);
-        return wrapper.result.orElse(null);
+        return showTextDialog(message, "", this::validateString).orElse(null);
+    }
+
+    private Optional<String> showTextDialog(final String message, final String defaultValue, final Function<String, Boolean> validator) {
+        return showAndAwait(() -> {
+            final TextInputDialog textInputDialog = new TextInputDialog(defaultValue);
+            textInputDialog.setTitle("Hamster needs input!");
+            textInputDialog.setHeaderText(message);
+
+            final Button okButton = (Button) textInputDialog.getDialogPane().lookupButton(ButtonType.OK);
+            textInputDialog.getDialogPane().getButtonTypes().remove(ButtonType.CANCEL);
+            final TextField inputField = textInputDialog.getEditor();
+            final BooleanBinding isInvalid = Bindings.createBooleanBinding(() -> !validator.apply(inputField.getText()), inputField.textProperty());
+            okButton.disableProperty().bind(isInvalid);
+            return textInputDialog;
+        });
     }
 
     private boolean validateString(final String s) {
@@ -66,15 +85,13 @@ public class JavaFXInputInterface implements UserInputInterface {
 
     @Override
     public void confirmAlert(final Throwable t) {
-        JavaFXUtil.blockingExecuteOnFXThread(() -> {
+        showAndAwait(() -> {
             final Dialog<ButtonType> alertDialog = new Alert(AlertType.ERROR);
-            this.currentDialog = Optional.of(alertDialog);
             alertDialog.setTitle("An exception occurred, program execution stopped.");
             alertDialog.setHeaderText("An exception of type " + t.getClass().getSimpleName() +
                     " occurred.\n" + t.getMessage() + ".\nProgram execution will be aborted. Please "+
                     "fix your program and try again.");
-            alertDialog.showAndWait();
-            this.currentDialog = Optional.empty();
+            return alertDialog;
         });
     }
 
@@ -84,4 +101,45 @@ public class JavaFXInputInterface implements UserInputInterface {
         this.currentDialog = Optional.empty();
     }
 
-}
\ No newline at end of file
+    /*
+     * Shows the dialog on the JavaFX application thread and waits until it is hidden.
+     */
+    private <T> Optional<T> showAndAwait(final Supplier<Dialog<T>> dialogFactory) {
+        if (Platform.isFxApplicationThread()) {
+            final Dialog<T> dialog = createDialog(dialogFactory);
+            final Optional<T> result = dialog.showAndWait();
+            currentDialog = Optional.empty();
+            return result;
+        }
+        final CompletableFuture<Optional<T>> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                final Dialog<T> dialog = createDialog(dialogFactory);
+                dialog.setOnHidden(event -> {
+                    currentDialog = Optional.empty();
+                    result.complete(Optional.ofNullable(dialog.getResult()));
+                });
+                dialog.show();
+            } catch (final RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort();
+            return Optional.empty();
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("failed to show a dialog", e.getCause());
+        }
+    }
+
+    private <T> Dialog<T> createDialog(final Supplier<Dialog<T>> dialogFactory) {
+        final Dialog<T> dialog = dialogFactory.get();
+        currentDialog = Optional.of(dialog);
+        initOwner(dialog);
+        return dialog;
+    }
+
+}
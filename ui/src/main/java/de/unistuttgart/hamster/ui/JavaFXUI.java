@@ -1,7 +1,7 @@
 package de.unistuttgart.hamster.ui;
 
 import de.unistuttgart.hamster.facade.HamsterGame;
-import de.unistuttgart.hamster.viewmodel.impl.HamsterGameViewPresenter;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Size;
 import de.unistuttgart.iste.sqa.mpw.framework.mpw.UserInputInterface;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.GameViewInput;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.GameViewModel;
@@ -10,26 +10,43 @@ import javafx.application.Platform;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class JavaFXUI extends Application {
 
-    private static final CountDownLatch initLatch = new CountDownLatch(1);
     private static final JavaFXInputInterface inputInterface = new JavaFXInputInterface();
     private static volatile boolean isStarted = false;
 
+    /**
+     * Territories with more tiles than this are rendered on a canvas by default, as the grid
+     * creates nodes for every tile.
+     */
+    private static final long MAXIMUM_GRID_RENDERER_TILE_COUNT = 2500;
+
     /*@
      @ requires true;
      @*/
     /**
      * Displays the hamster game associated with the provided hamster game adapter in a new window
-     * This automatically starts the UI, adds the necessary input interface and opens the scene
+     * This automatically starts the UI, adds an input interface for the game and opens the scene
+     * Large territories are rendered with {@link TerritoryRenderer#CANVAS}, all others with {@link TerritoryRenderer#GRID}
+     * @see GameDisplayManager
      */
     public static void displayInNewGameWindow(final HamsterGame game) {
-        var gameViewPresenter = new HamsterGameViewPresenter(game);
-        gameViewPresenter.bind();
-        game.setUserInputInterface(inputInterface);
-        openSceneFor(gameViewPresenter, gameViewPresenter.getViewModel());
+        GameDisplayManager.display(game);
+    }
+
+    /*@
+     @ requires true;
+     @*/
+    /**
+     * Displays the hamster game associated with the provided hamster game adapter in a new window
+     * which renders the territory with the given renderer
+     * This automatically starts the UI, adds an input interface for the game and opens the scene
+     * @see GameDisplayManager
+     */
+    public static void displayInNewGameWindow(final HamsterGame game, final TerritoryRenderer territoryRenderer) {
+        GameDisplayManager.display(game, territoryRenderer, RenderBudget.DEFAULT);
     }
 
     /*@
@@ -41,8 +58,7 @@ public class JavaFXUI extends Application {
      */
     public static void start() {
         if (!isStarted) {
-            new Thread(()->Application.launch(JavaFXUI.class)).start();
-            waitForJavaFXStart();
+            GameDisplayManager.startToolkit();
             isStarted = true;
             Platform.setImplicitExit(true);
         }
@@ -58,15 +74,8 @@ public class JavaFXUI extends Application {
         super.stop();
     }
 
-    private static void waitForJavaFXStart() {
-        try {
-            initLatch.await();
-        } catch (final InterruptedException ignored) { }
-    }
-
     @Override
     public void start(final Stage primaryStage) throws Exception {
-        initLatch.countDown();
     }
 
     /*@
@@ -76,19 +85,44 @@ public class JavaFXUI extends Application {
     /**
      * Opens a scene for the hamster game associated with hamsterGameViewModel
      * requires that the JavaFXUI is started
+     * Large territories are rendered with {@link TerritoryRenderer#CANVAS}, all others with {@link TerritoryRenderer#GRID}
      * @param gameViewModel the adapter for the hamster game to display
      */
     public static void openSceneFor(final GameViewInput gameViewInput, final GameViewModel gameViewModel) {
+        openSceneFor(gameViewInput, gameViewModel, getDefaultRendererFor(gameViewModel));
+    }
+
+    static TerritoryRenderer getDefaultRendererFor(final GameViewModel gameViewModel) {
+        final Size size = gameViewModel.getSize();
+        final long tileCount = (long) size.getColumnCount() * size.getRowCount();
+        return tileCount > MAXIMUM_GRID_RENDERER_TILE_COUNT ? TerritoryRenderer.CANVAS : TerritoryRenderer.GRID;
+    }
+
+    /*@
+     @ requires true;
+     @ ensures isStarted;
+     @*/
+    /**
+     * Opens a scene for the hamster game associated with hamsterGameViewModel
+     * requires that the JavaFXUI is started
+     * @param gameViewModel the adapter for the hamster game to display
+     * @param territoryRenderer the renderer used for the territory
+     */
+    public static void openSceneFor(final GameViewInput gameViewInput, final GameViewModel gameViewModel,
+                                    final TerritoryRenderer territoryRenderer) {
         start();
+        final AtomicReference<IOException> failure = new AtomicReference<>();
         JavaFXUtil.blockingExecuteOnFXThread(() -> {
-            Stage stage;
             try {
-                stage = new GameStage(gameViewInput, gameViewModel);
+                final Stage stage = new GameStage(gameViewInput, gameViewModel, territoryRenderer);
                 stage.show();
             } catch (final IOException e) {
-                inputInterface.confirmAlert(e);
+                failure.set(e);
             }
         });
+        if (failure.get() != null) {
+            new JavaFXInputInterface().confirmAlert(failure.get());
+        }
     }
 
     /*@
@@ -96,7 +130,9 @@ public class JavaFXUI extends Application {
      @ ensures \result != null;
      @*/
     /**
-     * Getter for the JavaFXInputInterface singleton
+     * Getter for the JavaFXInputInterface singleton, whose dialogs belong to no window and block the input to
+     * all windows. Games displayed with {@link #displayInNewGameWindow(HamsterGame)} use the input interface of
+     * their own window instead, see {@link GameDisplayManager#getInputInterface(HamsterGame)}.
      * @return the JavaFXInputInterface to display
      */
     public static UserInputInterface getJavaFXInputInterface() {
@@ -1,9 +1,9 @@
 package de.unistuttgart.hamster.ui;
 
+import de.unistuttgart.hamster.facade.GameMetrics;
 import javafx.application.Platform;
 import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 
@@ -22,42 +22,42 @@ public final class JavaFXUtil {
                 }
             });
 
+            final long start = System.nanoTime();
             try {
                 doneLatch.await();
             } catch (final InterruptedException ignored) { }
+            GameMetrics.recordFxThreadWait(System.nanoTime() - start);
         } else {
             runnable.run();
         }
     }
 
+    /**
+     * Replaces the color of all fully blue pixels of the image by the given color, keeping their opacity.
+     * The pixels are read and written in bulk.
+     */
     public static Image changeColor(final Image image, final Color color) {
         final int width = (int)image.getWidth();
         final int height = (int)image.getHeight();
-        //Creating a writable image
-        final WritableImage wImage = new WritableImage(width, height);
-
-        //Reading color from the loaded image
-        final PixelReader pixelReader = image.getPixelReader();
-
-        //getting the pixel writer
-        final PixelWriter writer = wImage.getPixelWriter();
-
-        //Reading the color of the image
-        for(int y = 0; y < height; y++) {
-            for(int x = 0; x < width; x++) {
-                //Retrieving the color of the pixel of the loaded image
-                final Color originalColor = pixelReader.getColor(x, y);
-                Color newColor;
-                if (originalColor.getBlue() == 1.0) {
-                    newColor = Color.color(color.getRed(), color.getGreen(), color.getBlue(), originalColor.getOpacity());
-                } else {
-                    newColor = originalColor;
-                }
-                //Setting the color to the writable image
-                writer.setColor(x, y, newColor);
+        final int[] pixels = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+
+        final int newRgb = (toColorComponent(color.getRed()) << 16)
+                | (toColorComponent(color.getGreen()) << 8)
+                | toColorComponent(color.getBlue());
+        for (int i = 0; i < pixels.length; i++) {
+            if ((pixels[i] & 0xFF) == 0xFF) {
+                pixels[i] = (pixels[i] & 0xFF000000) | newRgb;
             }
         }
+
+        final WritableImage wImage = new WritableImage(width, height);
+        wImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
         return wImage;
     }
 
+    private static int toColorComponent(final double value) {
+        return (int) Math.round(value * 255.0);
+    }
+
 }
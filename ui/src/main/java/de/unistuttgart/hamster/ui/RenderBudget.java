@@ -0,0 +1,58 @@
+package de.unistuttgart.hamster.ui;
+
+import static de.unistuttgart.iste.sqa.mpw.framework.utils.Preconditions.*;
+
+/**
+ * Limits how much rendering work a game window may claim from the JavaFX application thread,
+ * which is shared by all windows. Immutable.
+ */
+public final class RenderBudget {
+
+    /**
+     * No limit on the number of updates per pulse or on the frame rate.
+     */
+    public static final RenderBudget UNLIMITED = new RenderBudget(Integer.MAX_VALUE, Double.POSITIVE_INFINITY);
+
+    /**
+     * The budget of windows opened without an explicit budget.
+     */
+    public static final RenderBudget DEFAULT = new RenderBudget(4096, 60);
+
+    /*
+     * Pulses do not arrive exactly on time, a frame is due if its interval elapsed up to this tolerance.
+     */
+    private static final long FRAME_TOLERANCE_NANOS = 2_000_000;
+
+    private final int maximumUpdatesPerPulse;
+    private final double maximumFrameRate;
+
+    /**
+     * @param maximumUpdatesPerPulse the maximum number of scene graph updates applied per pulse, further
+     *                               updates are deferred to the next pulses
+     * @param maximumFrameRate the maximum number of times per second the window is updated
+     */
+    public RenderBudget(final int maximumUpdatesPerPulse, final double maximumFrameRate) {
+        checkArgument(maximumUpdatesPerPulse > 0, "maximum updates per pulse have to be positive");
+        checkArgument(maximumFrameRate > 0, "maximum frame rate has to be positive");
+        this.maximumUpdatesPerPulse = maximumUpdatesPerPulse;
+        this.maximumFrameRate = maximumFrameRate;
+    }
+
+    public int getMaximumUpdatesPerPulse() {
+        return maximumUpdatesPerPulse;
+    }
+
+    public double getMaximumFrameRate() {
+        return maximumFrameRate;
+    }
+
+    /**
+     * @param lastFrameNanos the pulse timestamp of the last update of the window
+     * @param now the timestamp of the current pulse
+     * @return whether the window may be updated in the current pulse
+     */
+    boolean isFrameDue(final long lastFrameNanos, final long now) {
+        return Double.isInfinite(maximumFrameRate)
+                || now - lastFrameNanos + FRAME_TOLERANCE_NANOS >= (long) (1_000_000_000L / maximumFrameRate);
+    }
+}
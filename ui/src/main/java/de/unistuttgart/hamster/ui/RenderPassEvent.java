@@ -0,0 +1,25 @@
+package de.unistuttgart.hamster.ui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a pulse applying the pending updates of all {@link UIUpdateQueue}s.
+ * Disabled by default.
+ */
+@Name("de.unistuttgart.hamster.RenderPass")
+@Label("Render Pass")
+@Category({"Hamster", "UI"})
+@Description("Scene graph updates applied in one pulse")
+@Enabled(false)
+@StackTrace(false)
+final class RenderPassEvent extends Event {
+    @Label("Batch Size")
+    @Description("Number of updates applied in the pulse")
+    int batchSize;
+}
@@ -0,0 +1,101 @@
+package de.unistuttgart.hamster.ui;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Color;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides the images for the image names of view model cell layers, shared by all game windows.
+ * Images are loaded, colorized and rotated on first use only.
+ */
+final class SpriteCache {
+
+    private static final String HAMSTER_IMAGE_PREFIX = "Hamster";
+    private static final String GRAIN_IMAGE_SUFFIX = "Corn";
+
+    private static final Map<String, Image> images = new ConcurrentHashMap<>();
+    private static final Map<String, Image> rotatedImages = new ConcurrentHashMap<>();
+
+    private SpriteCache() {
+    }
+
+    /**
+     * @param imageName the image name of a view model cell layer
+     * @return the image for the name, or null if there is none
+     */
+    static Image getImage(final String imageName) {
+        if (imageName == null) {
+            return null;
+        }
+        return images.computeIfAbsent(imageName, SpriteCache::loadImage);
+    }
+
+    /**
+     * Gets the image for the name, rotated clockwise. The rotation is rounded to quarter turns,
+     * as layers are only rotated to face one of the four directions.
+     *
+     * @param imageName the image name of a view model cell layer
+     * @param rotation the rotation in degrees
+     * @return the rotated image for the name, or null if there is none
+     */
+    static Image getImage(final String imageName, final double rotation) {
+        final int quarterTurns = (int) Math.floorMod(Math.round(rotation / 90.0), 4L);
+        if (quarterTurns == 0) {
+            return getImage(imageName);
+        }
+        final Image image = getImage(imageName);
+        if (image == null) {
+            return null;
+        }
+        return rotatedImages.computeIfAbsent(imageName + "@" + quarterTurns, key -> rotate(image, quarterTurns));
+    }
+
+    private static Image loadImage(final String imageName) {
+        if (imageName.startsWith(HAMSTER_IMAGE_PREFIX)) {
+            final Color color = Color.valueOf(imageName.substring(HAMSTER_IMAGE_PREFIX.length()));
+            return JavaFXUtil.changeColor(new Image("images/kara.png"), ViewModelColorConverter.toJavaFxColor(color));
+        } else if (imageName.equals("Wall")) {
+            return new Image("images/tree.png");
+        } else if (imageName.endsWith(GRAIN_IMAGE_SUFFIX)) {
+            return new Image("images/" + imageName + "32.png");
+        }
+        return null;
+    }
+
+    private static Image rotate(final Image image, final int quarterTurns) {
+        final int width = (int) image.getWidth();
+        final int height = (int) image.getHeight();
+        final int[] pixels = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+
+        final int[] rotatedPixels = new int[width * height];
+        final int rotatedWidth = quarterTurns % 2 == 0 ? width : height;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int index;
+                switch (quarterTurns) {
+                    case 1:
+                        index = x * height + (height - 1 - y);
+                        break;
+                    case 2:
+                        index = (height - 1 - y) * width + (width - 1 - x);
+                        break;
+                    default:
+                        index = (width - 1 - x) * height + y;
+                        break;
+                }
+                rotatedPixels[index] = pixels[y * width + x];
+            }
+        }
+
+        final int rotatedHeight = quarterTurns % 2 == 0 ? height : width;
+        final WritableImage rotatedImage = new WritableImage(rotatedWidth, rotatedHeight);
+        rotatedImage.getPixelWriter().setPixels(0, 0, rotatedWidth, rotatedHeight,
+                PixelFormat.getIntArgbInstance(), rotatedPixels, 0, rotatedWidth);
+        return rotatedImage;
+    }
+}
@@ -0,0 +1,15 @@
+package de.unistuttgart.hamster.ui;
+
+/**
+ * The available renderers for the territory of a game window.
+ */
+public enum TerritoryRenderer {
+    /**
+     * Renders each tile as its own node in a grid, see {@link HamsterTerritoryGrid}.
+     */
+    GRID,
+    /**
+     * Draws all tiles onto a single canvas, see {@link HamsterTerritoryCanvas}. Use this for large territories.
+     */
+    CANVAS
+}
@@ -1,43 +1,32 @@
 package de.unistuttgart.hamster.ui;
 
-import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Color;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.ViewModelCell;
 import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.ViewModelCellLayer;
-import javafx.beans.binding.Bindings;
+import javafx.beans.InvalidationListener;
 import javafx.collections.ListChangeListener;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.StackPane;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Shows the layers of a view model cell as stacked images.
+ * The layers are changed by the simulation. Their state is captured on the thread changing them and
+ * applied to the images by the update queue. All changes made until the update is applied are
+ * coalesced into it, so at most one update per tile is pending.
+ */
 public class TileNode extends StackPane {
 
-    private static final Map<String, Image> images = new HashMap<>();
-
-    static {
-        loadHamsterImages();
-        loadPropImages();
-    }
-
-    private static void loadHamsterImages() {
-        var hamsterImage = new Image("images/kara.png");
-        for (Color color : Color.values()) {
-            var colorizedHamsterImage = JavaFXUtil.changeColor(hamsterImage, ViewModelColorConverter.toJavaFxColor(color));
-            images.put("Hamster" + color.name(), colorizedHamsterImage);
-        }
-    }
-
-    private static void loadPropImages() {
-        images.put("Wall", new Image("images/tree.png"));
-        for (int i = 1; i <= 12; i++) {
-            images.put(i + "Corn", new Image("images/" + i + "Corn32.png"));
-        }
-    }
-
     private final ViewModelCell viewModelCell;
-    private final Map<ViewModelCellLayer, ImageView> imageViews = new HashMap<>();
+    private final UIUpdateQueue updateQueue;
+    // only accessed on the JavaFX application thread
+    private final List<ImageView> layerViews = new ArrayList<>();
+    private final AtomicBoolean isRefreshScheduled = new AtomicBoolean(false);
+    private volatile LayerState[] layerStates = new LayerState[0];
+
+    private final InvalidationListener layerPropertyListener = observable -> layersChanged();
 
     private final ListChangeListener<ViewModelCellLayer> layerListener = new ListChangeListener<>(){
 
@@ -45,40 +34,75 @@ public class TileNode extends StackPane {
         public void onChanged(final Change<? extends ViewModelCellLayer> change) {
             while(change.next()) {
                 if (change.wasAdded()) {
-                    change.getAddedSubList().forEach(layer -> addLayer(layer));
+                    change.getAddedSubList().forEach(layer -> observeLayer(layer));
                 }
                 if (change.wasRemoved()) {
-                    change.getRemoved().forEach(layer -> removeLayer(layer));
+                    change.getRemoved().forEach(layer -> ignoreLayer(layer));
                 }
             }
+            layersChanged();
         }
 
     };
 
-    TileNode(final ViewModelCell cell) {
+    TileNode(final ViewModelCell cell, final UIUpdateQueue updateQueue) {
         super();
         this.viewModelCell = cell;
+        this.updateQueue = updateQueue;
 
         configureStyle();
         cell.layersProperty().addListener(layerListener);
-        cell.layersProperty().forEach(this::addLayer);
+        cell.layersProperty().forEach(this::observeLayer);
+        layersChanged();
     }
 
     private void configureStyle() {
         this.getStyleClass().add("game-grid-cell");
         var tileImageView = createImageView();
-        tileImageView.setImage(images.get("Tile"));
+        tileImageView.setImage(SpriteCache.getImage("Tile"));
         this.getChildren().add(tileImageView);
     }
 
-    private void addLayer(final ViewModelCellLayer layer) {
-        var imageView = createImageView();
-        imageView.visibleProperty().bind(layer.visibleProperty());
-        imageView.imageProperty().bind(Bindings.createObjectBinding(() -> images.get(layer.getImageName()), layer.imageNameProperty()));
-        imageView.rotateProperty().bind(layer.rotationProperty());
+    private void observeLayer(final ViewModelCellLayer layer) {
+        layer.visibleProperty().addListener(layerPropertyListener);
+        layer.imageNameProperty().addListener(layerPropertyListener);
+        layer.rotationProperty().addListener(layerPropertyListener);
+    }
 
-        imageViews.put(layer, imageView);
-        JavaFXUtil.blockingExecuteOnFXThread(() -> this.getChildren().add(imageView));
+    private void ignoreLayer(final ViewModelCellLayer layer) {
+        layer.visibleProperty().removeListener(layerPropertyListener);
+        layer.imageNameProperty().removeListener(layerPropertyListener);
+        layer.rotationProperty().removeListener(layerPropertyListener);
+    }
+
+    private void layersChanged() {
+        final List<ViewModelCellLayer> layers = viewModelCell.getLayers();
+        final LayerState[] states = new LayerState[layers.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new LayerState(layers.get(i));
+        }
+        layerStates = states;
+        if (isRefreshScheduled.compareAndSet(false, true)) {
+            updateQueue.submitTileUpdate("refreshLayers", viewModelCell.getLocation(), this::refreshLayers);
+        }
+    }
+
+    private void refreshLayers() {
+        isRefreshScheduled.set(false);
+        final LayerState[] states = layerStates;
+        while (layerViews.size() < states.length) {
+            final ImageView imageView = createImageView();
+            layerViews.add(imageView);
+            this.getChildren().add(imageView);
+        }
+        while (layerViews.size() > states.length) {
+            this.getChildren().remove(layerViews.remove(layerViews.size() - 1));
+        }
+        for (int i = 0; i < states.length; i++) {
+            final ImageView imageView = layerViews.get(i);
+            imageView.setVisible(states[i].isVisible);
+            imageView.setImage(SpriteCache.getImage(states[i].imageName, states[i].rotation));
+        }
     }
 
     private ImageView createImageView() {
@@ -89,12 +113,23 @@ public class TileNode extends StackPane {
         return imageView;
     }
 
-    private void removeLayer(final ViewModelCellLayer layer) {
-        final ImageView view = imageViews.remove(layer);
-        JavaFXUtil.blockingExecuteOnFXThread(() -> this.getChildren().remove(view));
-    }
-
     public void dispose() {
         this.viewModelCell.layersProperty().removeListener(this.layerListener);
+        this.viewModelCell.layersProperty().forEach(this::ignoreLayer);
+    }
+
+    /*
+     * The state of a layer at the time of a change, captured on the thread which changed it.
+     */
+    private static final class LayerState {
+        final boolean isVisible;
+        final String imageName;
+        final double rotation;
+
+        LayerState(final ViewModelCellLayer layer) {
+            this.isVisible = layer.isVisible();
+            this.imageName = layer.getImageName();
+            this.rotation = layer.getRotation();
+        }
     }
 }
@@ -0,0 +1,34 @@
+package de.unistuttgart.hamster.ui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a single scene graph update of a tile, applied by the {@link UIUpdateQueue}.
+ * Disabled by default.
+ */
+@Name("de.unistuttgart.hamster.TileUpdate")
+@Label("Tile Update")
+@Category({"Hamster", "UI"})
+@Description("A scene graph update of a tile of the territory grid")
+@Enabled(false)
+@StackTrace(false)
+final class TileUpdateEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Column")
+    int column;
+
+    @Label("Row")
+    int row;
+
+    @Label("Batch Size")
+    @Description("Number of updates applied in the same pulse")
+    int batchSize;
+}
@@ -0,0 +1,270 @@
+package de.unistuttgart.hamster.ui;
+
+import de.unistuttgart.hamster.facade.GameMetrics;
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Location;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects changes to the scene graph of one game window made on behalf of the simulation and applies
+ * them on the JavaFX application thread, once per pulse and in the order they were submitted.
+ * Submitting never blocks, so the simulation thread does not wait on rendering.
+ * <p>
+ * The queue does not limit its length itself. Its submitters coalesce their updates instead: a
+ * {@link TileNode} has at most one pending update and the log of a window as well, further tile updates
+ * are only submitted when tiles are added or removed. So the number of pending updates is bounded by the
+ * number of tiles shown rather than by the number of changes made by the simulation.
+ * <p>
+ * The queues of all windows are drained by one scheduler, which serves them round robin in slices of
+ * {@value #SLICE_SIZE} updates, starting with a different queue each pulse. Every queue with pending updates
+ * gets at least one slice per pulse, further rounds are only run while the pulse is within its time budget.
+ * Each queue is limited by its {@link RenderBudget}, so one busy game cannot starve the others.
+ * The scheduler runs from the first submitted update until the last queue is disposed, and starts again
+ * with the next update submitted to a new queue.
+ */
+final class UIUpdateQueue {
+
+    private static final int SLICE_SIZE = 64;
+    private static final long PULSE_TIME_BUDGET_NANOS = 8_000_000;
+
+    private static final AtomicInteger totalPendingUpdateCount = new AtomicInteger();
+
+    static {
+        GameMetrics.setUiUpdateQueueDepthSupplier(totalPendingUpdateCount::get);
+    }
+
+    private final Scheduler scheduler;
+    private final Queue<Runnable> pendingUpdates = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingUpdateCount = new AtomicInteger();
+    private final RenderBudget budget;
+    private volatile boolean isDisposed = false;
+    // only accessed by the scheduler on the JavaFX application thread
+    private boolean hasDrainedFrame = false;
+    private long lastFrameNanos;
+    private int pulseBatchSize;
+    private int remainingPulseUpdates;
+
+    /**
+     * Creates a queue and registers it with the scheduler of all windows.
+     * Requires that the JavaFX toolkit is started.
+     *
+     * @param budget limits the updates applied per pulse and how often the queue is drained
+     */
+    UIUpdateQueue(final RenderBudget budget) {
+        this(budget, Scheduler.Shared.INSTANCE);
+    }
+
+    /**
+     * Creates a queue and registers it with the given scheduler.
+     *
+     * @param budget limits the updates applied per pulse and how often the queue is drained
+     * @param scheduler the scheduler draining the queue
+     */
+    UIUpdateQueue(final RenderBudget budget, final Scheduler scheduler) {
+        this.budget = budget;
+        this.scheduler = scheduler;
+        scheduler.queues.add(this);
+    }
+
+    /**
+     * Enqueues an update which is applied with the next pulse the budget allows.
+     *
+     * @param update the change to apply on the JavaFX application thread
+     */
+    void submit(final Runnable update) {
+        if (isDisposed) {
+            return;
+        }
+        pendingUpdateCount.incrementAndGet();
+        totalPendingUpdateCount.incrementAndGet();
+        pendingUpdates.add(update);
+        scheduler.updateSubmitted();
+    }
+
+    /**
+     * Enqueues an update of the tile at the given location, which is applied with the next pulse the budget allows.
+     * If enabled, a {@link TileUpdateEvent} is recorded for the update.
+     *
+     * @param operation the name of the update, e.g. "addLayer"
+     * @param location the location of the updated tile
+     * @param update the change to apply on the JavaFX application thread
+     */
+    void submitTileUpdate(final String operation, final Location location, final Runnable update) {
+        final TileUpdateEvent event = new TileUpdateEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.column = location.getColumn();
+            event.row = location.getRow();
+            submit(new RecordedTileUpdate(event, update));
+        } else {
+            submit(update);
+        }
+    }
+
+    /**
+     * Unregisters the queue and drops its pending updates. Updates submitted afterwards are ignored.
+     */
+    void dispose() {
+        isDisposed = true;
+        scheduler.queues.remove(this);
+        totalPendingUpdateCount.addAndGet(-pendingUpdateCount.getAndSet(0));
+        pendingUpdates.clear();
+        scheduler.queueDisposed();
+    }
+
+    /**
+     * Drains its queues round robin, see {@link UIUpdateQueue}. The scheduler of all windows is driven by an
+     * animation timer on the JavaFX application thread, other schedulers by calling {@link #drain(long)}.
+     */
+    static final class Scheduler {
+        private final List<UIUpdateQueue> queues = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean isRunning = new AtomicBoolean(false);
+        private final AnimationTimer drainTimer;
+        private int firstQueueIndex = 0;
+
+        /*
+         * Holds the scheduler of all windows, which is only created once a window needs it, together with the
+         * animation timer it requires.
+         */
+        private static final class Shared {
+            static final Scheduler INSTANCE = new Scheduler(true);
+        }
+
+        /**
+         * Creates a scheduler which is drained by calling {@link #drain(long)}.
+         */
+        Scheduler() {
+            this(false);
+        }
+
+        private Scheduler(final boolean isTimerDriven) {
+            this.drainTimer = !isTimerDriven ? null : new AnimationTimer() {
+                @Override
+                public void handle(final long now) {
+                    drain(now);
+                }
+            };
+        }
+
+        /**
+         * Applies the updates of its queues which are due in the pulse. Only drains updates pending when the
+         * pulse started, updates submitted while draining are applied with the next pulse.
+         * Must be called on the JavaFX application thread.
+         *
+         * @param now the timestamp of the pulse in nanoseconds
+         */
+        void drain(final long now) {
+            final RenderPassEvent event = new RenderPassEvent();
+            event.begin();
+            final long deadline = System.nanoTime() + PULSE_TIME_BUDGET_NANOS;
+            final UIUpdateQueue[] activeQueues = queues.toArray(new UIUpdateQueue[0]);
+            for (final UIUpdateQueue queue : activeQueues) {
+                queue.startPulse(now);
+            }
+            int appliedUpdateCount = 0;
+            if (activeQueues.length > 0) {
+                firstQueueIndex = (firstQueueIndex + 1) % activeQueues.length;
+                boolean hasRemainingUpdates;
+                do {
+                    hasRemainingUpdates = false;
+                    for (int i = 0; i < activeQueues.length; i++) {
+                        final UIUpdateQueue queue = activeQueues[(firstQueueIndex + i) % activeQueues.length];
+                        appliedUpdateCount += queue.applySlice();
+                        hasRemainingUpdates |= queue.remainingPulseUpdates > 0;
+                    }
+                } while (hasRemainingUpdates && System.nanoTime() < deadline);
+            }
+            event.end();
+            if (appliedUpdateCount > 0 && event.shouldCommit()) {
+                event.batchSize = appliedUpdateCount;
+                event.commit();
+            }
+        }
+
+        private void updateSubmitted() {
+            if (drainTimer != null && isRunning.compareAndSet(false, true)) {
+                Platform.runLater(this::updateDrainTimer);
+            }
+        }
+
+        private void queueDisposed() {
+            if (drainTimer != null && queues.isEmpty() && isRunning.compareAndSet(true, false)) {
+                Platform.runLater(this::updateDrainTimer);
+            }
+        }
+
+        /*
+         * Starting and stopping are requested from any thread, so the latest request is looked up here
+         * instead of being passed along. Starting or stopping the timer twice has no effect.
+         */
+        private void updateDrainTimer() {
+            if (isRunning.get()) {
+                drainTimer.start();
+            } else {
+                drainTimer.stop();
+            }
+        }
+    }
+
+    private void startPulse(final long now) {
+        final int pendingCount = pendingUpdateCount.get();
+        if (pendingCount == 0 || (hasDrainedFrame && !budget.isFrameDue(lastFrameNanos, now))) {
+            pulseBatchSize = 0;
+        } else {
+            pulseBatchSize = Math.min(pendingCount, budget.getMaximumUpdatesPerPulse());
+            lastFrameNanos = now;
+            hasDrainedFrame = true;
+        }
+        remainingPulseUpdates = pulseBatchSize;
+    }
+
+    private int applySlice() {
+        final int sliceSize = Math.min(SLICE_SIZE, remainingPulseUpdates);
+        int appliedCount = 0;
+        while (appliedCount < sliceSize && !isDisposed) {
+            final Runnable update = pendingUpdates.poll();
+            if (update == null) {
+                break;
+            }
+            pendingUpdateCount.decrementAndGet();
+            totalPendingUpdateCount.decrementAndGet();
+            if (update instanceof RecordedTileUpdate) {
+                ((RecordedTileUpdate) update).run(pulseBatchSize);
+            } else {
+                update.run();
+            }
+            appliedCount++;
+        }
+        remainingPulseUpdates = appliedCount < sliceSize ? 0 : remainingPulseUpdates - appliedCount;
+        return appliedCount;
+    }
+
+    private static final class RecordedTileUpdate implements Runnable {
+        private final TileUpdateEvent event;
+        private final Runnable update;
+
+        RecordedTileUpdate(final TileUpdateEvent event, final Runnable update) {
+            this.event = event;
+            this.update = update;
+        }
+
+        void run(final int batchSize) {
+            event.batchSize = batchSize;
+            run();
+        }
+
+        @Override
+        public void run() {
+            event.begin();
+            update.run();
+            event.commit();
+        }
+    }
+}
@@ -5,6 +5,7 @@ module de.unistuttgart.hamster.ui {
     requires javafx.base;
     requires javafx.fxml;
     requires javafx.controls;
+    requires jdk.jfr;
 
     exports de.unistuttgart.hamster.ui;
     opens de.unistuttgart.hamster.ui;
@@ -0,0 +1,125 @@
+package de.unistuttgart.hamster.ui;
+
+import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.GameViewInput;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameInputExecutorTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+    private final CountDownLatch isFirstCommandStarted = new CountDownLatch(1);
+    private final CountDownLatch isFirstCommandReleased = new CountDownLatch(1);
+    private final CountDownLatch isClosed = new CountDownLatch(1);
+
+    /*
+     * Blocks in the first command, so the following ones are pending and get coalesced.
+     */
+    private final GameViewInput input = new GameViewInput() {
+        @Override
+        public void playClicked() {
+            execute("play");
+        }
+
+        @Override
+        public void pauseClicked() {
+            execute("pause");
+        }
+
+        @Override
+        public void undoClicked() {
+            execute("undo");
+        }
+
+        @Override
+        public void redoClicked() {
+            execute("redo");
+        }
+
+        @Override
+        public void speedChanged(final double speed) {
+            execute("speed " + speed);
+        }
+
+        @Override
+        public void close() {
+            execute("close");
+            isClosed.countDown();
+        }
+    };
+
+    @Test
+    void coalescesPendingCommands() throws InterruptedException {
+        final GameInputExecutor executor = startBlocked();
+
+        executor.speedChanged(2);
+        executor.speedChanged(3);
+        executor.undoClicked();
+        executor.undoClicked();
+        executor.redoClicked();
+        executor.playClicked();
+        executor.pauseClicked();
+        executor.pauseClicked();
+        executor.pauseClicked();
+        executor.redoClicked();
+        executor.redoClicked();
+        executor.undoClicked();
+        executor.undoClicked();
+        executor.close();
+        isFirstCommandReleased.countDown();
+
+        assertTrue(isClosed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of("speed 1.0", "speed 3.0", "undo", "pause", "close"), executed);
+    }
+
+    @Test
+    void keepsOrderOfDifferentCommands() throws InterruptedException {
+        final GameInputExecutor executor = startBlocked();
+
+        executor.redoClicked();
+        executor.speedChanged(2);
+        executor.redoClicked();
+        executor.playClicked();
+        executor.close();
+        isFirstCommandReleased.countDown();
+
+        assertTrue(isClosed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of("speed 1.0", "redo", "speed 2.0", "redo", "play", "close"), executed);
+    }
+
+    @Test
+    void ignoresCommandsAfterClose() throws InterruptedException {
+        final GameInputExecutor executor = new GameInputExecutor(input);
+        isFirstCommandReleased.countDown();
+
+        executor.close();
+        executor.playClicked();
+        executor.close();
+
+        assertTrue(isClosed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of("close"), executed);
+    }
+
+    private GameInputExecutor startBlocked() throws InterruptedException {
+        final GameInputExecutor executor = new GameInputExecutor(input);
+        executor.speedChanged(1);
+        assertTrue(isFirstCommandStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        return executor;
+    }
+
+    private void execute(final String command) {
+        executed.add(command);
+        isFirstCommandStarted.countDown();
+        try {
+            assertTrue(isFirstCommandReleased.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
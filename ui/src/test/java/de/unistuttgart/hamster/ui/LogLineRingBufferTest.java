@@ -0,0 +1,100 @@
+package de.unistuttgart.hamster.ui;
+
+import de.unistuttgart.iste.sqa.mpw.framework.datatypes.Color;
+import de.unistuttgart.iste.sqa.mpw.framework.viewmodel.ViewModelLogEntry;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLineRingBufferTest {
+
+    @Test
+    void collapsesRepeatedEntries() {
+        final GameLogModel.LogLineRingBuffer lines = new GameLogModel.LogLineRingBuffer(10);
+
+        lines.append(entries("Move", "Move", "Move", "Turn Left", "Move"));
+
+        assertEquals(List.of("Move (3x)", "Turn Left", "Move"), textsOf(lines));
+    }
+
+    @Test
+    void keepsDifferentColorsApart() {
+        final GameLogModel.LogLineRingBuffer lines = new GameLogModel.LogLineRingBuffer(10);
+
+        lines.append(List.of(new ViewModelLogEntry("Move", Color.BLUE), new ViewModelLogEntry("Move", Color.GREEN)));
+
+        assertEquals(List.of("Move", "Move"), textsOf(lines));
+    }
+
+    @Test
+    void continuesLastLineWithOneChangePerBatch() {
+        final GameLogModel.LogLineRingBuffer lines = new GameLogModel.LogLineRingBuffer(10);
+        lines.append(entries("Turn Left", "Move"));
+        final ChangeMirror mirror = new ChangeMirror(lines);
+
+        lines.append(entries("Move", "Move", "Pick Clover"));
+
+        assertEquals(List.of("Turn Left", "Move (3x)", "Pick Clover"), textsOf(lines));
+        assertEquals(textsOf(lines), mirror.texts);
+        assertEquals(1, mirror.changeCount);
+    }
+
+    @Test
+    void dropsOldestLinesBeyondCapacity() {
+        final GameLogModel.LogLineRingBuffer lines = new GameLogModel.LogLineRingBuffer(3);
+        lines.append(entries("a", "b"));
+        final ChangeMirror mirror = new ChangeMirror(lines);
+
+        lines.append(entries("c", "d", "e"));
+        lines.append(entries("f", "g", "h", "i"));
+
+        assertEquals(List.of("g", "h", "i"), textsOf(lines));
+        assertEquals(textsOf(lines), mirror.texts);
+        assertEquals(2, mirror.changeCount);
+    }
+
+    @Test
+    void replacesAllLines() {
+        final GameLogModel.LogLineRingBuffer lines = new GameLogModel.LogLineRingBuffer(3);
+        lines.append(entries("a", "b", "c", "d"));
+
+        lines.clearAndAppend(entries("x", "x"));
+
+        assertEquals(List.of("x (2x)"), textsOf(lines));
+    }
+
+    private static List<ViewModelLogEntry> entries(final String... messages) {
+        return Arrays.stream(messages)
+                .map(message -> new ViewModelLogEntry(message, Color.BLUE))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> textsOf(final List<? extends GameLogModel.LogLine> lines) {
+        return lines.stream().map(GameLogModel.LogLine::getText).collect(Collectors.toList());
+    }
+
+    /*
+     * Applies the changes fired by the buffer to a copy of its texts, so the changes can be checked against the buffer.
+     */
+    private static final class ChangeMirror {
+        final List<String> texts;
+        int changeCount = 0;
+
+        ChangeMirror(final GameLogModel.LogLineRingBuffer lines) {
+            this.texts = new ArrayList<>(textsOf(lines));
+            lines.addListener((ListChangeListener<GameLogModel.LogLine>) change -> {
+                changeCount++;
+                while (change.next()) {
+                    texts.subList(change.getFrom(), change.getFrom() + change.getRemovedSize()).clear();
+                    texts.addAll(change.getFrom(), textsOf(change.getAddedSubList()));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package de.unistuttgart.hamster.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UIUpdateQueueTest {
+    private static final long FRAME_NANOS_AT_TEN_FPS = 100_000_000;
+
+    private final UIUpdateQueue.Scheduler scheduler = new UIUpdateQueue.Scheduler();
+    private final List<String> applied = new ArrayList<>();
+
+    @Test
+    void appliesUpdatesInSubmissionOrder() {
+        final UIUpdateQueue queue = new UIUpdateQueue(RenderBudget.UNLIMITED, scheduler);
+        submit(queue, "a", 3);
+        submit(queue, "b", 2);
+
+        scheduler.drain(0);
+
+        assertEquals(List.of("a", "a", "a", "b", "b"), applied);
+    }
+
+    @Test
+    void servesQueuesRoundRobinInSlices() {
+        final UIUpdateQueue first = new UIUpdateQueue(RenderBudget.UNLIMITED, scheduler);
+        final UIUpdateQueue second = new UIUpdateQueue(RenderBudget.UNLIMITED, scheduler);
+        submit(first, "first", 128);
+        submit(second, "second", 100);
+
+        scheduler.drain(0);
+
+        final List<String> expected = new ArrayList<>();
+        expected.addAll(Collections.nCopies(64, "second"));
+        expected.addAll(Collections.nCopies(64, "first"));
+        expected.addAll(Collections.nCopies(36, "second"));
+        expected.addAll(Collections.nCopies(64, "first"));
+        assertEquals(expected, applied);
+    }
+
+    @Test
+    void startsWithAnotherQueueEachPulse() {
+        final UIUpdateQueue first = new UIUpdateQueue(RenderBudget.UNLIMITED, scheduler);
+        final UIUpdateQueue second = new UIUpdateQueue(RenderBudget.UNLIMITED, scheduler);
+        submit(first, "first", 1);
+        submit(second, "second", 1);
+        scheduler.drain(0);
+        applied.clear();
+
+        submit(first, "first", 1);
+        submit(second, "second", 1);
+        scheduler.drain(1);
+
+        assertEquals(List.of("first", "second"), applied);
+    }
+
+    @Test
+    void limitsUpdatesPerPulse() {
+        final UIUpdateQueue limited = new UIUpdateQueue(new RenderBudget(10, Double.POSITIVE_INFINITY), scheduler);
+        final UIUpdateQueue unlimited = new UIUpdateQueue(RenderBudget.UNLIMITED, scheduler);
+        submit(limited, "limited", 25);
+        submit(unlimited, "unlimited", 25);
+
+        scheduler.drain(0);
+
+        assertEquals(10, count("limited"));
+        assertEquals(25, count("unlimited"));
+
+        scheduler.drain(1);
+        scheduler.drain(2);
+
+        assertEquals(25, count("limited"));
+    }
+
+    @Test
+    void limitsFrameRate() {
+        final UIUpdateQueue queue = new UIUpdateQueue(new RenderBudget(Integer.MAX_VALUE, 10), scheduler);
+        submit(queue, "a", 1);
+        scheduler.drain(0);
+        submit(queue, "a", 1);
+
+        scheduler.drain(FRAME_NANOS_AT_TEN_FPS / 2);
+
+        assertEquals(1, count("a"));
+
+        scheduler.drain(FRAME_NANOS_AT_TEN_FPS);
+
+        assertEquals(2, count("a"));
+    }
+
+    @Test
+    void appliesUpdatesSubmittedWhileDrainingWithTheNextPulse() {
+        final UIUpdateQueue queue = new UIUpdateQueue(RenderBudget.UNLIMITED, scheduler);
+        queue.submit(() -> {
+            applied.add("a");
+            queue.submit(() -> applied.add("b"));
+        });
+
+        scheduler.drain(0);
+
+        assertEquals(List.of("a"), applied);
+
+        scheduler.drain(1);
+
+        assertEquals(List.of("a", "b"), applied);
+    }
+
+    @Test
+    void dropsUpdatesOfDisposedQueues() {
+        final UIUpdateQueue disposed = new UIUpdateQueue(RenderBudget.UNLIMITED, scheduler);
+        final UIUpdateQueue active = new UIUpdateQueue(RenderBudget.UNLIMITED, scheduler);
+        submit(disposed, "disposed", 3);
+        submit(active, "active", 1);
+
+        disposed.dispose();
+        submit(disposed, "disposed", 1);
+        scheduler.drain(0);
+
+        assertEquals(List.of("active"), applied);
+    }
+
+    private void submit(final UIUpdateQueue queue, final String name, final int count) {
+        for (int i = 0; i < count; i++) {
+            queue.submit(() -> applied.add(name));
+        }
+    }
+
+    private long count(final String name) {
+        return applied.stream().filter(name::equals).count();
+    }
+}